@@ -0,0 +1,46 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.benchmark;
+
+import main.model.PackedHand;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * BenchmarkHands builds the fixed, seeded hands the benchmarks run over, so every run measures the same input.
+ */
+public final class BenchmarkHands {
+
+    public static final int POOL_SIZE = 1024; // a power of two, so benchmarks can cycle with a mask
+    public static final long SEED = 20240430L;
+
+    private BenchmarkHands() {
+    }
+
+    /**
+     * @param count the number of hands
+     * @param handSize the number of cards in each hand
+     * @param seed the random seed
+     * @return distinct random packed hands
+     */
+    public static long[] packedHands(int count, int handSize, long seed) {
+        Random random = new Random(seed);
+        long[] hands = new long[count];
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            long hand;
+            do {
+                hand = PackedHand.EMPTY;
+                while (PackedHand.size(hand) < handSize) {
+                    hand |= 1L << random.nextInt(PackedHand.CARD_COUNT);
+                }
+            } while (!seen.add(hand));
+            hands[i] = hand;
+        }
+        return hands;
+    }
+}
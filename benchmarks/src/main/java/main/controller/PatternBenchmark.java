@@ -0,0 +1,63 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.benchmark.BenchmarkHands;
+import main.model.Hand;
+import main.model.PackedHand;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dealer choosing cards from a hand, for each of the 12 patterns and for hands of 4 to 13 cards, both
+ * through the engine and as the compiled pattern alone.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PatternBenchmark {
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    public int pattern;
+
+    @Param({"4", "6", "8", "13"})
+    public int handSize;
+
+    private final GameEngine engine = new GameEngine();
+    private DealerPattern compiled;
+    private Hand[] hands;
+    private long[] packedHands;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        compiled = PatternRules.loadDefault()[pattern - 1];
+        packedHands = BenchmarkHands.packedHands(BenchmarkHands.POOL_SIZE, handSize, BenchmarkHands.SEED);
+        hands = new Hand[packedHands.length];
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = PackedHand.toHand(packedHands[i]);
+        }
+    }
+
+    /**
+     * The full path the engine takes for a played hand, including packing the hand.
+     */
+    @Benchmark
+    public long chooseCardsBasedOnCurrentPattern() {
+        return engine.chooseCardsBasedOnCurrentPattern(pattern, hands[next++ & (BenchmarkHands.POOL_SIZE - 1)]);
+    }
+
+    /**
+     * The pattern compiled from DealerPatterns.rules, over packed hands.
+     */
+    @Benchmark
+    public long selectCompiled() {
+        return compiled.select(packedHands[next++ & (BenchmarkHands.POOL_SIZE - 1)]);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.benchmark.BenchmarkHands;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the solver ruling out candidates for the first hand of a round, when all of them are still
+ * consistent and the most work is done, and scoring a hand for a bot.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PatternSolverBenchmark {
+
+    @Param({"1", "7", "9"})
+    public int pattern;
+
+    private final PatternSolver solver = new PatternSolver();
+    private long[] packedHands;
+    private long[] chosen;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        packedHands = BenchmarkHands.packedHands(BenchmarkHands.POOL_SIZE, GameEngine.HAND_SIZE, BenchmarkHands.SEED);
+        DealerPattern dealer = PatternRules.loadDefault()[pattern - 1];
+        chosen = new long[packedHands.length];
+        for (int i = 0; i < packedHands.length; i++) {
+            chosen[i] = dealer.select(packedHands[i]);
+        }
+    }
+
+    /**
+     * Resetting and observing one hand, over all 132257 candidates.
+     */
+    @Benchmark
+    public int observeFirstHand() {
+        int i = next++ & (BenchmarkHands.POOL_SIZE - 1);
+        solver.reset();
+        solver.observe(packedHands[i], chosen[i]);
+        return solver.getObservations();
+    }
+
+    /**
+     * Counting the candidates accepting a hand after one observation.
+     */
+    @Benchmark
+    public int countAccepting() {
+        int i = next++ & (BenchmarkHands.POOL_SIZE - 1);
+        solver.reset();
+        solver.observe(packedHands[i], chosen[i]);
+        return solver.countAccepting(packedHands[(i + 1) & (BenchmarkHands.POOL_SIZE - 1)]);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.benchmark.BenchmarkHands;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how finding the largest subset adding up to a target grows with the number of cards, for the target
+ * pattern nine uses and for one large enough that the table search is no longer the cheapest.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubsetSumBenchmark {
+
+    @Param({"4", "6", "8", "13", "20", "26", "40", "48"})
+    public int cards;
+
+    @Param({"11", "200"})
+    public int target;
+
+    private SubsetSum subsetSum;
+    private long[] packedHands;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        subsetSum = new SubsetSum(target, 1, 2);
+        packedHands = BenchmarkHands.packedHands(BenchmarkHands.POOL_SIZE, cards, BenchmarkHands.SEED);
+    }
+
+    @Benchmark
+    public long largest() {
+        return subsetSum.largest(packedHands[next++ & (BenchmarkHands.POOL_SIZE - 1)]);
+    }
+}
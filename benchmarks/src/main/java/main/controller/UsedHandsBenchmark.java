@@ -0,0 +1,53 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.benchmark.BenchmarkHands;
+import main.model.Hand;
+import main.model.PackedHand;
+import main.view.GameView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the duplicate hand check as the number of hands played in a round grows. The probed hands are never
+ * in the history, which is the common case and the most expensive one.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UsedHandsBenchmark {
+
+    @Param({"0", "16", "256", "4096"})
+    public int historySize;
+
+    private final GameEngine engine = new GameEngine();
+    private GameSession session;
+    private Hand[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long[] packed = BenchmarkHands.packedHands(historySize + BenchmarkHands.POOL_SIZE, GameEngine.HAND_SIZE,
+                BenchmarkHands.SEED);
+        session = engine.newSession(1, GameView.NONE);
+        for (int i = 0; i < historySize; i++) {
+            session.getUsedHands().add(packed[i]);
+        }
+        probes = new Hand[BenchmarkHands.POOL_SIZE];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = PackedHand.toHand(packed[historySize + i]);
+        }
+    }
+
+    @Benchmark
+    public boolean isUniqueHand() {
+        return engine.isUniqueHand(session, probes[next++ & (BenchmarkHands.POOL_SIZE - 1)]);
+    }
+}
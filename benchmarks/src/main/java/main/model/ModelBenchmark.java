@@ -0,0 +1,122 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+import main.benchmark.BenchmarkHands;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Deck and Hand operations used on every played hand.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    private static final int HAND_SIZE = 4;
+    private static final int BATCH_SIZE = 64;
+
+    private Deck deck;
+    private Rank[] ranks;
+    private Suit[] suits;
+    private Hand[] hands;
+    private long[] packedHands;
+    private String[] loggedCards;
+    private final Hand scratch = new Hand(); // reused so the benchmarks measure the operation, not the Hand
+    private final DealEngine dealEngine = new DealEngine(BenchmarkHands.SEED);
+    private final long[] dealtHands = new long[BATCH_SIZE];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        deck = new Deck();
+        Random random = new Random(BenchmarkHands.SEED);
+        ranks = new Rank[BenchmarkHands.POOL_SIZE];
+        suits = new Suit[BenchmarkHands.POOL_SIZE];
+        for (int i = 0; i < BenchmarkHands.POOL_SIZE; i++) {
+            ranks[i] = Rank.values()[random.nextInt(Rank.values().length)];
+            suits[i] = Suit.values()[random.nextInt(Suit.values().length)];
+        }
+        long[] packed = BenchmarkHands.packedHands(BenchmarkHands.POOL_SIZE, HAND_SIZE, BenchmarkHands.SEED);
+        packedHands = packed;
+        hands = new Hand[packed.length];
+        for (int i = 0; i < hands.length; i++) {
+            // toHand orders cards by ordinal, shuffle them so sorting has work to do
+            Hand hand = PackedHand.toHand(packed[i]);
+            Collections.shuffle(hand.getHand(), random);
+            hands[i] = hand;
+        }
+        loggedCards = new String[BenchmarkHands.POOL_SIZE];
+        for (int i = 0; i < loggedCards.length; i++) {
+            loggedCards[i] = deck.getCard(ranks[i], suits[i]).format_card_for_logger(random.nextBoolean());
+        }
+    }
+
+    @Benchmark
+    public Card getCard() {
+        int i = next++ & (BenchmarkHands.POOL_SIZE - 1);
+        return deck.getCard(ranks[i], suits[i]);
+    }
+
+    @Benchmark
+    public int parseLoggedCard() {
+        String text = loggedCards[next++ & (BenchmarkHands.POOL_SIZE - 1)];
+        return CardRegistry.parseToken(text, 0, text.length());
+    }
+
+    @Benchmark
+    public Hand dealRandomCardsIntoHand() {
+        scratch.clear();
+        deck.dealRandomCardsIntoHand(scratch, HAND_SIZE);
+        return scratch;
+    }
+
+    @Benchmark
+    public long dealPackedHand() {
+        return dealEngine.deal(HAND_SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long[] dealBatchOfHands() {
+        dealEngine.deal(dealtHands, 0, BATCH_SIZE, HAND_SIZE);
+        return dealtHands;
+    }
+
+    @Benchmark
+    public long rankHand() {
+        return HandIndex.rank(packedHands[next++ & (BenchmarkHands.POOL_SIZE - 1)]);
+    }
+
+    @Benchmark
+    public long unrankHand() {
+        return HandIndex.unrank(next++ % HandIndex.count(HAND_SIZE), HAND_SIZE);
+    }
+
+    @Benchmark
+    public String formatHandForLogger() {
+        return hands[next++ & (BenchmarkHands.POOL_SIZE - 1)].format_hand_for_logger();
+    }
+
+    /**
+     * Copies an unsorted hand into a scratch hand and sorts it, the copy is part of the measurement.
+     */
+    @Benchmark
+    public Hand sortHandByRank() {
+        scratch.clear();
+        for (Card card : hands[next++ & (BenchmarkHands.POOL_SIZE - 1)].getHand()) {
+            scratch.addCard(card);
+        }
+        scratch.sortHandByRank();
+        return scratch;
+    }
+}
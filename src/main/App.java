@@ -3,11 +3,12 @@
  and Yosef Alqufidi in Spring 2024 Semester as part of the Introduction to Software Profession class at the
  University of Missouri - Saint Louis.
 
-  It contains the classes: Card for a single playing card represented using the Rank and Suit enums,
-  Deck for a  collection of 52 Cards, and Hand as a collection of 4 Cards.
+  It contains the classes: Card for a single playing card represented using the Rank and Suit enums, and Hand for
+  the cards the user picks, 4 by default or any number from 1 to 52.
 
-  The Deck and Hand classes use an ArrayList as their central Data Structure to enable easy shuffling and
-  dealing of cards.
+  For the dealer's patterns a hand is packed into the bits of a long by PackedHand, one bit per card, so patterns
+  compiled by PatternRules choose cards with a few bitwise operations. Deck deals random hands of any size with a
+  seedable DealEngine, which only shuffles the cards it deals.
 
   In order to run the program, clone the repository from https://github.com/DustinYochim/Art-Dealer down to your
   local machine. Then open the program in your favorite IDE (we developed using IntelliJ). Once you have the program
@@ -19,17 +20,42 @@
 package main;
 
 import main.controller.GameController;
-import main.model.Deck;
+import main.controller.GameEngine;
+import main.metrics.EdtWatchdog;
+import main.metrics.Metrics;
+import main.model.PackedHand;
 import main.view.GUI;
 
 /**
- * App is the starting point of the program and where the card Deck, GUI, and GameController will be initialized.
+ * App is the starting point of the program and where the GUI and GameController will be initialized.
+ * An optional argument sets the number of cards in a hand, e.g. {@code java main.App 8}. The game's metrics are
+ * published over JMX under "main.metrics", and the event thread is watched for stalls.
  */
 public class App {
     public static void main(String[] args) {
-        Deck deck = new Deck(); // initialize deck
-        GUI gui = new GUI(deck); // initialize GUI
-        GameController controller = new GameController(deck, gui); // controller will need deck and GUI to control flow
+        int handSize = args.length > 0 ? parseHandSize(args[0]) : GameEngine.HAND_SIZE;
+        if (handSize < 1 || handSize > PackedHand.CARD_COUNT || args.length > 1) {
+            System.err.println("Usage: java main.App [handSize], where handSize is 1 to " + PackedHand.CARD_COUNT
+                    + " (default " + GameEngine.HAND_SIZE + ")");
+            System.exit(2);
+        }
+        Metrics.registerMBeans(); // latency histograms and counters, for JConsole or VisualVM
+        EdtWatchdog.startDefault(); // logs a warning with the event thread's stack when it stalls
+        GUI gui = new GUI(); // initialize GUI
+        // controller will need the GUI to control flow
+        GameController controller = new GameController(gui, handSize);
         gui.startApp(); // this starts the GUI
     }
+
+    /**
+     * @param arg the hand size argument
+     * @return the hand size, or -1 if the argument is not a number
+     */
+    private static int parseHandSize(String arg) {
+        try {
+            return Integer.parseInt(arg.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,477 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main;
+
+import main.controller.DealerPattern;
+import main.controller.PatternRules;
+import main.controller.VerdictTable;
+import main.log.BinaryHistoryReader;
+import main.log.HistoryVisitor;
+import main.model.Card;
+import main.model.CardRegistry;
+import main.model.PackedHand;
+
+import java.io.BufferedInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BatchEvaluator is the command line counterpart of App: it reads recorded hands, lets the dealer choose from each
+ * one, and streams the verdicts to standard output without a GUI. Hands are read as hand lines of CardsDealt.txt,
+ * e.g. "2H,5C,JD,AS", or from a binary history written by BinaryHistoryWriter; other lines and records are skipped,
+ * and stars in the input are ignored. Every hand prints one line, the hand with the dealer's choices in stars for
+ * each pattern evaluated, separated by tabs, so the output can be diffed against a recorded CardsDealt.txt.
+ *
+ * Reading and parsing, evaluating, and writing each run on their own thread, passing batches of hands along. A
+ * fixed number of batches is handed round and reused, so memory stays the same however large the input is.
+ *
+ * Four card hands can be looked up in a {@link VerdictTable} generated from the same rules instead of being
+ * evaluated, with {@code --table PatternVerdicts.bin}.
+ *
+ * Usage: {@code java main.BatchEvaluator [--binary] [--pattern n] [--rules file] [--table file] [input]}, reading
+ * standard input when no input file is given.
+ */
+public final class BatchEvaluator {
+
+    private static final int BATCH_HANDS = 4096; // hands in a batch
+    private static final int BATCH_CARDS = BATCH_HANDS * 8; // card ordinals in a batch, a full batch of 8 card hands
+    private static final int BATCH_COUNT = 8; // batches in flight, which bounds the memory used
+    private static final int BUFFER_BYTES = 1 << 16; // size of the input and output buffers
+
+    /**
+     * A run of hands on its way through the pipeline. A batch with no hands marks the end of the input.
+     */
+    private static final class Batch {
+        final int[] ordinals = new int[BATCH_CARDS]; // the cards of every hand, in the order they were picked
+        final int[] ends = new int[BATCH_HANDS]; // hand i's cards end at ends[i]
+        final long[] hands = new long[BATCH_HANDS]; // hand i as a PackedHand
+        final long[] chosen; // the cards pattern p chose from hand i at i * patterns + p
+        int count;
+
+        Batch(int patterns) {
+            chosen = new long[BATCH_HANDS * patterns];
+        }
+
+        boolean hasRoomFor(int cards) {
+            return count < BATCH_HANDS && start(count) + cards <= BATCH_CARDS;
+        }
+
+        int start(int hand) {
+            return hand == 0 ? 0 : ends[hand - 1];
+        }
+    }
+
+    private final DealerPattern[] patterns;
+
+    private final BlockingQueue<Batch> free = new ArrayBlockingQueue<>(BATCH_COUNT);
+    private final BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(BATCH_COUNT);
+    private final BlockingQueue<Batch> evaluated = new ArrayBlockingQueue<>(BATCH_COUNT);
+
+    private volatile Throwable failure; // the first error of any stage, after which the stages just drain
+    private long handCount;
+
+    /**
+     * @param patterns the dealer's patterns to evaluate every hand against, in output column order
+     */
+    public BatchEvaluator(DealerPattern[] patterns) {
+        this.patterns = patterns.clone();
+        for (int i = 0; i < BATCH_COUNT; i++) {
+            free.add(new Batch(patterns.length));
+        }
+    }
+
+    /**
+     * Evaluates every hand of the input and writes the verdicts.
+     * @param in the hands, text or binary
+     * @param binary whether the input is a binary history
+     * @param out receives the verdict lines
+     * @return the number of hands evaluated
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public long run(InputStream in, boolean binary, OutputStream out) throws IOException {
+        Thread evaluator = new Thread(this::evaluate, "batch-evaluator");
+        Thread writer = new Thread(() -> write(out), "batch-writer");
+        evaluator.start();
+        writer.start();
+        try {
+            try {
+                if (binary) {
+                    readBinary(in);
+                } else {
+                    readText(in);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+            Batch end = take(free);
+            end.count = 0; // an empty batch ends the input
+            put(parsed, end);
+            evaluator.join();
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while evaluating hands", e);
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new IOException(failure);
+        }
+        return handCount;
+    }
+
+    /******************************* PARSING **********************************************/
+
+    private Batch current; // the batch being filled by the reading thread
+
+    /**
+     * Adds a hand to the batch being filled, passing the batch on when it is full.
+     */
+    private void addHand(int[] ordinals, int size) throws InterruptedException {
+        if (current == null || !current.hasRoomFor(size)) {
+            if (current != null) {
+                put(parsed, current);
+            }
+            current = take(free);
+            current.count = 0;
+        }
+        int start = current.start(current.count);
+        long hand = PackedHand.EMPTY;
+        for (int i = 0; i < size; i++) {
+            current.ordinals[start + i] = ordinals[i];
+            hand |= 1L << ordinals[i];
+        }
+        current.ends[current.count] = start + size;
+        current.hands[current.count++] = hand;
+        handCount++;
+    }
+
+    private void flushBatch() throws InterruptedException {
+        if (current != null && current.count > 0) {
+            put(parsed, current);
+        }
+        current = null;
+    }
+
+    /**
+     * Scans the input for hand lines a buffer at a time, parsing the cards straight from the bytes.
+     */
+    private void readText(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_BYTES];
+        int[] ordinals = new int[PackedHand.CARD_COUNT];
+        int length = 0; // bytes in the buffer
+        boolean skipping = false; // in a line too long to be a hand
+        try {
+            int read;
+            while (failure == null && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                int start = 0;
+                for (int end = start; end < length; end++) {
+                    if (buffer[end] == '\n') {
+                        if (!skipping) {
+                            parseLine(buffer, start, end, ordinals);
+                        }
+                        skipping = false;
+                        start = end + 1;
+                    }
+                }
+                if (start == 0 && length == buffer.length) { // no line break in a whole buffer
+                    skipping = true;
+                    start = length;
+                }
+                System.arraycopy(buffer, start, buffer, 0, length - start);
+                length -= start;
+            }
+            if (!skipping && length > 0) {
+                parseLine(buffer, 0, length, ordinals);
+            }
+            flushBatch();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading hands", e);
+        }
+    }
+
+    /**
+     * Adds the line as a hand if it is one, e.g. "2H,*5C*,JD,AS": one to 52 different cards separated by commas.
+     */
+    private void parseLine(byte[] bytes, int start, int end, int[] ordinals) throws InterruptedException {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (start == end || bytes[end - 1] == ',') {
+            return;
+        }
+        int size = 0;
+        long hand = PackedHand.EMPTY;
+        while (start < end) {
+            int comma = start;
+            while (comma < end && bytes[comma] != ',') {
+                comma++;
+            }
+            int token = CardRegistry.parseToken(bytes, start, comma);
+            if (token < 0 || size == PackedHand.CARD_COUNT) {
+                return;
+            }
+            int ordinal = token & ~CardRegistry.CHOSEN;
+            if ((hand & (1L << ordinal)) != 0) { // a card twice is not a hand
+                return;
+            }
+            hand |= 1L << ordinal;
+            ordinals[size++] = ordinal;
+            start = comma + 1;
+        }
+        addHand(ordinals, size);
+    }
+
+    private void readBinary(InputStream in) throws IOException {
+        BinaryHistoryReader.read(in, new HistoryVisitor() {
+            @Override
+            public void sessionStarted(LocalDate date) {
+            }
+
+            @Override
+            public void hand(int[] ordinals, int size, long chosenPositions) {
+                if (failure != null) {
+                    throw new IllegalStateException("Stopped reading after an error", failure);
+                }
+                try {
+                    addHand(ordinals, size);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while reading hands", e);
+                }
+            }
+
+            @Override
+            public void roundWon(int pattern) {
+            }
+
+            @Override
+            public void text(String line) {
+            }
+        });
+        try {
+            flushBatch();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading hands", e);
+        }
+    }
+
+    /******************************* EVALUATING AND WRITING **********************************************/
+
+    private void evaluate() {
+        Batch batch = null; // a batch taken and not yet passed on
+        try {
+            while ((batch = take(parsed)).count > 0) {
+                if (failure == null) {
+                    evaluate(batch);
+                }
+                put(evaluated, batch);
+                batch = null;
+            }
+            put(evaluated, batch);
+        } catch (InterruptedException e) {
+            fail(e);
+            forward(batch);
+        }
+    }
+
+    /**
+     * Keeps passing batches on unevaluated after the evaluator was interrupted, up to and including the empty batch
+     * that ends the input, so the reading and writing stages can finish.
+     * @param held a batch taken but not yet passed on, or null
+     */
+    private void forward(Batch held) {
+        Batch batch = held;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (batch == null) {
+                    batch = take(parsed);
+                }
+                put(evaluated, batch);
+                if (batch.count == 0) {
+                    break;
+                }
+                batch = null;
+            } catch (InterruptedException e) {
+                interrupted = true; // the writer still waits for the end of the input
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void evaluate(Batch batch) {
+        try {
+            for (int i = 0; i < batch.count; i++) {
+                long hand = batch.hands[i];
+                for (int p = 0; p < patterns.length; p++) {
+                    batch.chosen[i * patterns.length + p] = patterns[p].select(hand);
+                }
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void write(OutputStream out) {
+        byte[] buffer = new byte[BUFFER_BYTES];
+        int length = 0;
+        try {
+            Batch batch;
+            while ((batch = take(evaluated)).count > 0) {
+                for (int i = 0; i < batch.count && failure == null; i++) {
+                    // a hand line takes at most 52 cards of "*10H*," per pattern
+                    if (length + patterns.length * PackedHand.CARD_COUNT * 6 + 1 > buffer.length) {
+                        out.write(buffer, 0, length);
+                        length = 0;
+                    }
+                    length = writeHand(batch, i, buffer, length);
+                }
+                put(free, batch);
+            }
+            if (failure == null) {
+                out.write(buffer, 0, length);
+                out.flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+            drain();
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Keeps passing batches back after the output failed, so the other stages can finish.
+     */
+    private void drain() {
+        try {
+            Batch batch;
+            while ((batch = take(evaluated)).count > 0) {
+                put(free, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int writeHand(Batch batch, int hand, byte[] buffer, int length) {
+        int start = batch.start(hand);
+        int end = batch.ends[hand];
+        for (int p = 0; p < patterns.length; p++) {
+            if (p > 0) {
+                buffer[length++] = '\t';
+            }
+            long chosen = batch.chosen[hand * patterns.length + p];
+            for (int c = start; c < end; c++) {
+                if (c > start) {
+                    buffer[length++] = ',';
+                }
+                int ordinal = batch.ordinals[c];
+                String text = Card.of(ordinal).format_card_for_logger((chosen & (1L << ordinal)) != 0);
+                for (int k = 0; k < text.length(); k++) {
+                    buffer[length++] = (byte) text.charAt(k);
+                }
+            }
+        }
+        buffer[length++] = '\n';
+        return length;
+    }
+
+    /******************************* PLUMBING **********************************************/
+
+    private void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private static Batch take(BlockingQueue<Batch> queue) throws InterruptedException {
+        return queue.take();
+    }
+
+    private static void put(BlockingQueue<Batch> queue, Batch batch) throws InterruptedException {
+        queue.put(batch);
+    }
+
+    /**
+     * @param arg the pattern argument
+     * @return the pattern, or -1 if the argument is not a number
+     */
+    private static int parsePattern(String arg) {
+        try {
+            return Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Evaluates the hands of a file or standard input.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean binary = false;
+        int pattern = 0; // every pattern
+        String rules = null;
+        String table = null;
+        String input = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--binary" -> binary = true;
+                case "--pattern" -> pattern = ++i < args.length ? parsePattern(args[i]) : -1;
+                case "--rules" -> rules = ++i < args.length ? args[i] : null;
+                case "--table" -> table = ++i < args.length ? args[i] : null;
+                default -> input = args[i];
+            }
+        }
+
+        String rulesText = rules != null ? Files.readString(Paths.get(rules), StandardCharsets.UTF_8)
+                : PatternRules.readDefault();
+        DealerPattern[] patterns = PatternRules.load(rulesText);
+        if (pattern < 0 || pattern > patterns.length) {
+            System.err.println("Usage: BatchEvaluator [--binary] [--pattern 1-" + patterns.length
+                    + "] [--rules file] [--table file] [input]");
+            System.exit(2);
+        }
+        if (table != null) {
+            // the table is only loaded if it was generated from these rules
+            VerdictTable verdicts = VerdictTable.load(Paths.get(table), rulesText);
+            for (int p = 0; p < patterns.length; p++) {
+                patterns[p] = verdicts.pattern(p + 1, patterns[p]);
+            }
+        }
+        if (pattern > 0) {
+            patterns = new DealerPattern[] {patterns[pattern - 1]};
+        }
+
+        long start = System.nanoTime();
+        long hands;
+        try (InputStream in = input == null ? new BufferedInputStream(new FileInputStream(FileDescriptor.in), BUFFER_BYTES)
+                : new BufferedInputStream(Files.newInputStream(Paths.get(input)), BUFFER_BYTES);
+             OutputStream out = new FileOutputStream(FileDescriptor.out)) {
+            hands = new BatchEvaluator(patterns).run(in, binary, out);
+        }
+        System.err.printf(Locale.ROOT, "%d hands, %d patterns, %.2f s%n", hands, patterns.length,
+                (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,19 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+/**
+ * A dealer selection pattern: given the user's hand as a PackedHand, it returns the packed set of cards the dealer
+ * picks from it. Patterns compiled by {@link PatternRules} work on primitive longs only and do not allocate.
+ */
+@FunctionalInterface
+public interface DealerPattern {
+
+    /**
+     * @param hand the user's hand
+     * @return the cards the dealer picks, a subset of the hand
+     */
+    long select(long hand);
+}
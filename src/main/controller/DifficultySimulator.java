@@ -0,0 +1,438 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+import main.model.PackedHandSet;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * DifficultySimulator measures how hard each dealer pattern is by playing many rounds of it headless, with a bot
+ * standing in for the player. A round is played the way {@link GameEngine} plays it: a hand already played in the
+ * round is turned away without being evaluated, and the round is won once the dealer has chosen every card of
+ * {@link GameEngine#WINS_REQUIRED_FOR_NEXT_ROUND} hands. The result for a round is the distribution of the number
+ * of hands it took to win.
+ *
+ * The games are split across the common fork/join pool. Every task splits its own SplittableRandom for the tasks
+ * it forks, so a seed always gives the same results however the work is scheduled. The random and greedy bots
+ * play millions of games in seconds; the solver bot narrows down 132k candidate rules with every hand, so it is
+ * best run with a few thousand games.
+ *
+ * Usage: {@code java main.controller.DifficultySimulator [games] [handSize] [seed]}
+ */
+public final class DifficultySimulator {
+
+    public static final int DEFAULT_MAX_HANDS = 1000; // hands a bot may try in a round before giving up
+
+    private static final int GAMES_PER_TASK = 1024; // games a fork/join task plays rather than splitting
+    private static final int HAND_TRIES = 16; // hands a bot draws looking for one it has not played
+
+    /**
+     * The ways a bot can pick its next hand.
+     */
+    public enum Strategy {
+        RANDOM, // deals itself a random hand
+        GREEDY, // keeps the cards the dealer chose from its last hand and draws the rest at random
+        SOLVER // plays a hand accepted by a rule picked at random from those a PatternSolver still finds consistent
+    }
+
+    private final DealerPattern[] patterns;
+    private final int handSize;
+    private final int maxHands;
+
+    /**
+     * @param patterns the dealer's pattern for each round, round 1 first
+     * @param handSize the number of cards in every hand, 1 to 52
+     * @param maxHands the hands a bot may try in a round before it gives up
+     */
+    public DifficultySimulator(DealerPattern[] patterns, int handSize, int maxHands) {
+        if (handSize < 1 || handSize > PackedHand.CARD_COUNT) {
+            throw new IllegalArgumentException("Hand size must be 1 to " + PackedHand.CARD_COUNT + ": " + handSize);
+        }
+        if (maxHands < 1) {
+            throw new IllegalArgumentException("A bot must be allowed at least one hand: " + maxHands);
+        }
+        this.patterns = patterns.clone();
+        this.handSize = handSize;
+        this.maxHands = maxHands;
+    }
+
+    /**
+     * Plays a number of games of one round on the common fork/join pool.
+     * @param round the round whose pattern is played, 1 to the number of patterns
+     * @param strategy how the bot picks its hands
+     * @param games the number of games to play
+     * @param seed the seed of the random numbers, the same seed giving the same results
+     * @return the hands it took to win each game
+     */
+    public RoundStats simulate(int round, Strategy strategy, int games, long seed) {
+        if (round < 1 || round > patterns.length) {
+            throw new IllegalArgumentException("No pattern for round " + round);
+        }
+        return ForkJoinPool.commonPool().invoke(new Games(round, strategy, 0, games, new SplittableRandom(seed)));
+    }
+
+    /**
+     * Plays the games from..to, splitting them in half until there are few enough to play on one thread.
+     */
+    private final class Games extends RecursiveTask<RoundStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int round;
+        private final Strategy strategy;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        Games(int round, Strategy strategy, int from, int to, SplittableRandom random) {
+            this.round = round;
+            this.strategy = strategy;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected RoundStats compute() {
+            if (to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                Games first = new Games(round, strategy, from, middle, random.split());
+                first.fork();
+                RoundStats stats = new Games(round, strategy, middle, to, random).compute();
+                stats.add(first.join());
+                return stats;
+            }
+            RoundStats stats = new RoundStats(maxHands);
+            Player player = newPlayer(strategy);
+            PackedHandSet usedHands = new PackedHandSet();
+            for (int game = from; game < to; game++) {
+                playRound(patterns[round - 1], player, usedHands, random, stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Plays one round until the bot wins it or runs out of hands, and records how many hands it took.
+     */
+    private void playRound(DealerPattern pattern, Player player, PackedHandSet usedHands, SplittableRandom random,
+                           RoundStats stats) {
+        usedHands.clear();
+        player.reset();
+        int wins = 0;
+        int hands = 0;
+        int duplicates = 0;
+        for (int tries = 0; tries < maxHands; tries++) {
+            long hand = player.nextHand(usedHands, random);
+            if (!usedHands.add(hand)) { // turned away like GameEngine.playHand does
+                duplicates++;
+                continue;
+            }
+            hands++;
+            long chosen = pattern.select(hand);
+            player.observe(hand, chosen);
+            if (chosen == hand && ++wins == GameEngine.WINS_REQUIRED_FOR_NEXT_ROUND) {
+                stats.recordWin(hands, duplicates);
+                return;
+            }
+        }
+        stats.recordLoss(duplicates);
+    }
+
+    /******************************* BOTS **********************************************/
+
+    /**
+     * A bot playing one round at a time. A bot is used by one thread only.
+     */
+    private interface Player {
+        /**
+         * @return the next hand to play, which should not be in usedHands
+         */
+        long nextHand(PackedHandSet usedHands, SplittableRandom random);
+
+        /**
+         * Shows the bot the cards the dealer chose from the hand it played.
+         */
+        void observe(long hand, long chosen);
+
+        /**
+         * Starts a new round.
+         */
+        void reset();
+    }
+
+    private Player newPlayer(Strategy strategy) {
+        switch (strategy) {
+            case GREEDY:
+                return new GreedyPlayer();
+            case SOLVER:
+                return new SolverPlayer();
+            default:
+                return new RandomPlayer();
+        }
+    }
+
+    private final class RandomPlayer implements Player {
+        @Override
+        public long nextHand(PackedHandSet usedHands, SplittableRandom random) {
+            return drawUnplayed(PackedHand.EMPTY, usedHands, random);
+        }
+
+        @Override
+        public void observe(long hand, long chosen) {
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    private final class GreedyPlayer implements Player {
+        private long kept = PackedHand.EMPTY; // cards the next hand starts from
+        private boolean keptAll; // whether the dealer chose every card of the last hand
+
+        @Override
+        public long nextHand(PackedHandSet usedHands, SplittableRandom random) {
+            if (keptAll) { // swap a card out to play a new hand like the last one
+                kept &= ~randomCards(kept, 1, random);
+                keptAll = false;
+            }
+            long hand = drawUnplayed(kept, usedHands, random);
+            if (usedHands.contains(hand)) { // every hand like the last one was played, so start over
+                kept = PackedHand.EMPTY;
+                hand = drawUnplayed(kept, usedHands, random);
+            }
+            return hand;
+        }
+
+        @Override
+        public void observe(long hand, long chosen) {
+            kept = chosen;
+            keptAll = chosen == hand;
+        }
+
+        @Override
+        public void reset() {
+            kept = PackedHand.EMPTY;
+            keptAll = false;
+        }
+    }
+
+    private final class SolverPlayer implements Player {
+        // no built-in patterns, so the bot knows no more about the dealer than a player does
+        private final PatternSolver solver = new PatternSolver(new DealerPattern[0]);
+
+        @Override
+        public long nextHand(PackedHandSet usedHands, SplittableRandom random) {
+            int consistent = solver.countConsistent();
+            for (int i = 0; consistent > 0 && i < HAND_TRIES; i++) {
+                int guess = solver.nthConsistent(random.nextInt(consistent));
+                // draw from the cards the guess would take from a whole deck, when there are enough of them
+                long cards = solver.select(guess, PackedHand.FULL_DECK);
+                long hand = randomCards(Long.bitCount(cards) >= handSize ? cards : PackedHand.FULL_DECK,
+                        handSize, random);
+                if (solver.select(guess, hand) == hand && !usedHands.contains(hand)) {
+                    return hand;
+                }
+            }
+            return drawUnplayed(PackedHand.EMPTY, usedHands, random);
+        }
+
+        @Override
+        public void observe(long hand, long chosen) {
+            solver.observe(hand, chosen);
+        }
+
+        @Override
+        public void reset() {
+            solver.reset();
+        }
+    }
+
+    /**
+     * @return the kept cards and random others, trying a few times for a hand not played yet this round
+     */
+    private long drawUnplayed(long kept, PackedHandSet usedHands, SplittableRandom random) {
+        long hand = PackedHand.EMPTY;
+        for (int i = 0; i < HAND_TRIES; i++) {
+            hand = kept | randomCards(PackedHand.FULL_DECK & ~kept, handSize - Long.bitCount(kept), random);
+            if (!usedHands.contains(hand)) {
+                break;
+            }
+        }
+        return hand;
+    }
+
+    /**
+     * @param from the cards to draw from, at least count of them
+     * @param count the number of cards to draw
+     * @return count different cards drawn at random
+     */
+    static long randomCards(long from, int count, SplittableRandom random) {
+        long drawn = PackedHand.EMPTY;
+        if (Long.bitCount(from) - count >= PackedHand.CARD_COUNT / 4) {
+            // at least one card in four is left to draw, so pick cards from the whole deck until enough are drawn
+            for (int drawnCount = 0; drawnCount < count; ) {
+                long card = 1L << random.nextInt(PackedHand.CARD_COUNT);
+                if ((from & ~drawn & card) != 0) {
+                    drawn |= card;
+                    drawnCount++;
+                }
+            }
+            return drawn;
+        }
+        for (int i = 0; i < count; i++) {
+            long left = from & ~drawn;
+            for (int skip = random.nextInt(Long.bitCount(left)); skip > 0; skip--) {
+                left &= left - 1;
+            }
+            drawn |= Long.lowestOneBit(left);
+        }
+        return drawn;
+    }
+
+    /******************************* RESULTS **********************************************/
+
+    /**
+     * The number of hands it took to win each game of a round, as a histogram.
+     */
+    public static final class RoundStats {
+
+        private final long[] wonAfter; // wonAfter[h] games were won after h hands
+        private long lost; // games not won within the most hands allowed
+        private long duplicates; // hands turned away for having been played already
+
+        /**
+         * @param maxHands the most hands a game can take
+         */
+        public RoundStats(int maxHands) {
+            wonAfter = new long[maxHands + 1];
+        }
+
+        void recordWin(int hands, int duplicateHands) {
+            wonAfter[hands]++;
+            duplicates += duplicateHands;
+        }
+
+        void recordLoss(int duplicateHands) {
+            lost++;
+            duplicates += duplicateHands;
+        }
+
+        /**
+         * Adds the games of other to these.
+         * @param other the stats of more games of the same round
+         */
+        public void add(RoundStats other) {
+            for (int hands = 0; hands < wonAfter.length; hands++) {
+                wonAfter[hands] += other.wonAfter[hands];
+            }
+            lost += other.lost;
+            duplicates += other.duplicates;
+        }
+
+        /**
+         * @return the number of games won
+         */
+        public long getWon() {
+            long won = 0;
+            for (long games : wonAfter) {
+                won += games;
+            }
+            return won;
+        }
+
+        /**
+         * @return the number of games not won within the most hands allowed
+         */
+        public long getLost() {
+            return lost;
+        }
+
+        /**
+         * @return the number of hands turned away for having been played already in the round
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * @param hands a number of hands
+         * @return the number of games won after exactly that many hands
+         */
+        public long getWonAfter(int hands) {
+            return hands >= 0 && hands < wonAfter.length ? wonAfter[hands] : 0;
+        }
+
+        /**
+         * @return the average number of hands the games that were won took
+         */
+        public double getMeanHands() {
+            long won = 0;
+            long hands = 0;
+            for (int h = 0; h < wonAfter.length; h++) {
+                won += wonAfter[h];
+                hands += h * wonAfter[h];
+            }
+            return won == 0 ? Double.NaN : (double) hands / won;
+        }
+
+        /**
+         * @param fraction a fraction of all games, e.g. 0.9
+         * @return the fewest hands within which that fraction of games was won, or -1 if it never was
+         */
+        public int getPercentile(double fraction) {
+            long needed = (long) Math.ceil(fraction * (getWon() + lost));
+            long won = 0;
+            for (int h = 0; h < wonAfter.length; h++) {
+                won += wonAfter[h];
+                if (won >= needed) {
+                    return h;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            long games = getWon() + lost;
+            return String.format(Locale.ROOT, "won %5.1f%%  mean %7.1f  p50 %4s  p90 %4s  p99 %4s  duplicates %d",
+                    games == 0 ? 0.0 : 100.0 * getWon() / games, getMeanHands(), hands(getPercentile(0.5)),
+                    hands(getPercentile(0.9)), hands(getPercentile(0.99)), duplicates);
+        }
+
+        private static String hands(int hands) {
+            return hands < 0 ? "-" : Integer.toString(hands);
+        }
+    }
+
+    /**
+     * Prints the hands-to-win distribution of every round for every bot.
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int handSize = args.length > 1 ? Integer.parseInt(args[1]) : GameEngine.HAND_SIZE;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        DealerPattern[] patterns = PatternRules.loadDefault();
+        DifficultySimulator simulator = new DifficultySimulator(patterns, handSize, DEFAULT_MAX_HANDS);
+        for (Strategy strategy : Strategy.values()) {
+            // the solver bot is far slower per hand, see the class comment
+            int strategyGames = strategy == Strategy.SOLVER ? Math.max(1, games / 100) : games;
+            long start = System.nanoTime();
+            System.out.println(strategy + ", " + strategyGames + " games per round of " + handSize + " card hands");
+            for (int round = 1; round <= patterns.length; round++) {
+                System.out.printf(Locale.ROOT, "  round %2d  %s%n", round,
+                        simulator.simulate(round, strategy, strategyGames, seed));
+            }
+            System.out.printf(Locale.ROOT, "  %.1f s%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.metrics.LatencyHistogram;
+import main.metrics.Metrics;
+import main.model.Hand;
+import main.model.PackedHand;
+import main.view.GameView;
+
+/**
+ * GameEngine holds the rules of Art Dealer: it evaluates a hand against the dealer's pattern, scores it, and
+ * moves a {@link GameSession} through the rounds. The engine keeps no state between calls and never touches
+ * Swing, so one engine can play any number of sessions, each from its own thread. Everything the player should
+ * see is reported through the session's {@link GameView}. The dealer's patterns are compiled from
+ * {@link PatternRules} when the engine is created.
+ */
+public class GameEngine {
+
+    public static final int HAND_SIZE = 4; // the size of a user's hand, unless the game sets another
+    public static final int WINS_REQUIRED_FOR_NEXT_ROUND = 2; // number of wins required to advance to next round
+    public static final int TOTAL_ROUNDS = 12; // one round per dealer pattern
+
+    /**
+     * The result of playing one hand.
+     */
+    public enum Outcome {
+        DUPLICATE_HAND, // the hand was already played this round and was not evaluated
+        NO_MATCH, // the dealer did not choose every card
+        POINT, // the dealer chose every card, the round continues
+        ROUND_WON, // the user won the round and the session moved on to the next one
+        GAME_WON // the user won the last round
+    }
+
+    private final DealerPattern[] patterns; // the dealer's pattern for each round, round 1 first
+
+    /**
+     * Creates an engine playing the patterns from {@link PatternRules#loadDefault()}.
+     */
+    public GameEngine() {
+        this(PatternRules.loadDefault());
+    }
+
+    /**
+     * @param patterns the dealer's pattern for each round, round 1 first
+     */
+    public GameEngine(DealerPattern[] patterns) {
+        if (patterns.length < TOTAL_ROUNDS) {
+            throw new IllegalArgumentException("Expected " + TOTAL_ROUNDS + " patterns, got " + patterns.length);
+        }
+        this.patterns = patterns.clone();
+    }
+
+    /**
+     * @param startingRound the round the session starts in
+     * @param view the view receiving the session's callbacks, {@link GameView#NONE} for headless play
+     * @return a new session
+     */
+    public GameSession newSession(int startingRound, GameView view) {
+        return new GameSession(startingRound, view);
+    }
+
+    /**
+     * @param startingRound the round the session starts in
+     * @param view the view receiving the session's callbacks, {@link GameView#NONE} for headless play
+     * @param handSize the number of cards in every hand of the game
+     * @return a new session
+     */
+    public GameSession newSession(int startingRound, GameView view, int handSize) {
+        return new GameSession(startingRound, view, handSize);
+    }
+
+    /**
+     * Puts the session back in round 1 with no wins.
+     * @param session a game session
+     */
+    public void restart(GameSession session) {
+        session.reset(1);
+    }
+
+    /**
+     * Verifies the hand is unique this round, lets the dealer choose, updates the view, and scores the hand.
+     * @param session the session the hand is played in
+     * @param hand the user's hand, session.getHandSize() different cards
+     * @return the outcome of the hand
+     */
+    public Outcome playHand(GameSession session, Hand hand) {
+        GameView view = session.getView();
+
+        long packedHand = PackedHand.fromHand(hand);
+        if (PackedHand.size(packedHand) != session.getHandSize() || hand.getHand().size() != session.getHandSize()) {
+            throw new IllegalArgumentException("Expected " + session.getHandSize() + " different cards: "
+                    + hand.format_hand_for_logger());
+        }
+
+        // Check if the hand has already been used, adding it to the used hands if not
+        if (!session.getUsedHands().add(packedHand)) {
+            Metrics.DUPLICATE_HANDS.increment();
+            view.showSameHandWarning(); // Inform the user that the hand has already been used
+            return Outcome.DUPLICATE_HAND;
+        }
+
+        Metrics.HANDS.increment();
+        int round = session.getCurrentRound();
+        long chosenByDealer = chooseCardsBasedOnCurrentPattern(round, hand);
+        session.record(hand.format_hand_for_logger(chosenByDealer));
+        view.displayHand(hand, chosenByDealer);
+
+        // pattern nine also tells the user which combination the dealer bought
+        if (round == 9 && chosenByDealer != PackedHand.EMPTY) {
+            view.announceSelectionPatternNine("The dealer bought: "
+                    + hand.select(chosenByDealer).format_hand_for_logger(chosenByDealer));
+        }
+
+        if (chosenByDealer == packedHand) { // dealer chose every card
+            return handleUserScore(session);
+        }
+        return Outcome.NO_MATCH;
+    }
+
+    /**
+     * handleUserScore increments the currentRoundsWins and determines if user advances to next round or not
+     */
+    private Outcome handleUserScore(GameSession session) {
+        GameView view = session.getView();
+        session.addWin();
+        Metrics.WINS.increment();
+        view.updateRoundNumber(session.getCurrentRound(), session.getCurrentRoundWins(), WINS_REQUIRED_FOR_NEXT_ROUND);
+        if (session.getCurrentRoundWins() == WINS_REQUIRED_FOR_NEXT_ROUND) {
+            return handleRoundWin(session);
+        }
+        view.announceWin(session.getCurrentRoundWins(), WINS_REQUIRED_FOR_NEXT_ROUND);
+        return Outcome.POINT;
+    }
+
+    /**
+     * handleRoundWin() records the user winning a round and moves the session on to the next round, unless it was
+     * the last one.
+     */
+    private Outcome handleRoundWin(GameSession session) {
+        GameView view = session.getView();
+        session.record("USER WON PATTERN " + session.getCurrentRound());
+        Metrics.ROUNDS_WON.increment();
+        if (session.getCurrentRound() >= TOTAL_ROUNDS) {
+            return Outcome.GAME_WON;
+        }
+
+        // User wins the round, increment current round and reset wins counter
+        view.announceWin(session.getCurrentRoundWins(), WINS_REQUIRED_FOR_NEXT_ROUND);
+        view.playVictorySound();
+        view.updateRoundNumber(session.getCurrentRound(), session.getCurrentRoundWins(), WINS_REQUIRED_FOR_NEXT_ROUND);
+
+        session.advanceRound();
+        view.updateRoundNumber(session.getCurrentRound(), session.getCurrentRoundWins(), WINS_REQUIRED_FOR_NEXT_ROUND);
+        view.clearCardPanel();
+        return Outcome.ROUND_WON;
+    }
+
+    /**
+     * @param pattern the current round is used to determine the pattern
+     * @param userHand the user's current hand
+     * @return the packed set of cards the dealer chose from the user hand using the correct pattern
+     */
+    public long chooseCardsBasedOnCurrentPattern(int pattern, Hand userHand) {
+        if (pattern == 8) {
+            userHand.sortHandByRank(); // pattern eight shows the user their hand sorted by rank
+        }
+        // rounds without a pattern of their own fall back to the first one
+        DealerPattern dealerPattern = pattern >= 1 && pattern <= patterns.length ? patterns[pattern - 1] : patterns[0];
+        LatencyHistogram latency = Metrics.patternLatency(pattern);
+        long start = System.nanoTime();
+        long chosen = dealerPattern.select(PackedHand.fromHand(userHand));
+        latency.recordSince(start);
+        return chosen;
+    }
+
+    /**
+     * @param session a game session
+     * @param currentHand the user's current hand
+     * @return whether the hand has not been played yet this round, in any order
+     */
+    public boolean isUniqueHand(GameSession session, Hand currentHand) {
+        return !session.getUsedHands().contains(PackedHand.fromHand(currentHand));
+    }
+}
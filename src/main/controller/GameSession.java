@@ -0,0 +1,132 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+import main.model.PackedHandSet;
+import main.view.GameView;
+
+import java.util.function.Consumer;
+
+/**
+ * GameSession holds the state of one player's game: the number of cards in a hand, the current round, the wins in
+ * that round, and the hands already played in it. Sessions are played by a {@link GameEngine}, which has no state
+ * of its own, so a process can host as many sessions as it likes. A session is not thread-safe and should be
+ * played from one thread at a time.
+ */
+public class GameSession {
+
+    private final GameView view; // receives the callbacks for this session
+
+    private final int handSize; // the number of cards in every hand of this game
+
+    private Consumer<String> historyLog = line -> { }; // receives every history line, e.g. the log file
+
+    private int currentRound; // used to keep track of the user's current round
+
+    private int currentRoundWins = 0; // used to keep track of wins in current round
+
+    private final PackedHandSet usedHands = new PackedHandSet(); // used to keep track of hands in a round
+
+    /**
+     * @param startingRound the round the session starts in
+     * @param view the view receiving this session's callbacks
+     */
+    public GameSession(int startingRound, GameView view) {
+        this(startingRound, view, GameEngine.HAND_SIZE);
+    }
+
+    /**
+     * @param startingRound the round the session starts in
+     * @param view the view receiving this session's callbacks
+     * @param handSize the number of cards in every hand, 1 to 52
+     */
+    public GameSession(int startingRound, GameView view, int handSize) {
+        if (handSize < 1 || handSize > PackedHand.CARD_COUNT) {
+            throw new IllegalArgumentException("Hand size must be 1 to " + PackedHand.CARD_COUNT + ": " + handSize);
+        }
+        this.currentRound = startingRound;
+        this.view = view;
+        this.handSize = handSize;
+    }
+
+    /**
+     * @return the view receiving this session's callbacks
+     */
+    public GameView getView() {
+        return view;
+    }
+
+    /**
+     * Sets where history lines are written in addition to the view, e.g. {@code logFile::writeToFile}.
+     * @param historyLog the history line consumer
+     */
+    public void setHistoryLog(Consumer<String> historyLog) {
+        this.historyLog = historyLog;
+    }
+
+    /**
+     * @return the number of cards in every hand of this game
+     */
+    public int getHandSize() {
+        return handSize;
+    }
+
+    /**
+     * @return the current round the user is on.
+     */
+    public int getCurrentRound() {
+        return currentRound;
+    }
+
+    /**
+     * @return the user's wins in the current round
+     */
+    public int getCurrentRoundWins() {
+        return currentRoundWins;
+    }
+
+    /**
+     * @return the packed hands already played in the current round
+     */
+    PackedHandSet getUsedHands() {
+        return usedHands;
+    }
+
+    /**
+     * Adds a line to the view's history and to the history log.
+     * @param line a hand formatted for logging, or a round won message
+     */
+    void record(String line) {
+        view.displayPrevious(line);
+        historyLog.accept(line);
+    }
+
+    /**
+     * Counts a win in the current round.
+     */
+    void addWin() {
+        currentRoundWins++;
+    }
+
+    /**
+     * Moves the session on to the next round.
+     */
+    void advanceRound() {
+        currentRound++;
+        currentRoundWins = 0;
+        usedHands.clear();
+    }
+
+    /**
+     * Puts the session back in the given round with no wins and no used hands.
+     * @param round the round to restart from
+     */
+    void reset(int round) {
+        currentRound = round;
+        currentRoundWins = 0;
+        usedHands.clear();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.log.HistoryVisitor;
+import main.log.MappedHistoryReader;
+import main.model.PackedHand;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HistoryReplay plays the hands recorded in CardsDealt.txt files again with the current patterns and checks that
+ * the dealer still chooses the cards that were recorded, which makes it a regression gate for pattern changes.
+ *
+ * The log does not say which round a hand was played in, so the sessions are rebuilt from it: the hands after a
+ * date line, or after "USER WON PATTERN n", up to the next such line are one run of a round. A run ended by
+ * "USER WON PATTERN n" was round n. A run ended by a new session or the end of the file was the round after the
+ * last one won in its session. When that is not known, e.g. in a session resumed from saved progress, the run is
+ * given to the first round whose pattern would have chosen every recorded card, and counted as unattributed if
+ * there is none. Runs given to a round that way are counted as matched rather than checked, since they cannot
+ * have changed. A changed pattern can make its runs match another round or none, so unattributed hands fail the
+ * gate too.
+ *
+ * Usage: {@code java main.controller.HistoryReplay CardsDealt.txt...}, exiting with status 1 if any hand's
+ * verdict changed or any hand could not be attributed to a round.
+ */
+public final class HistoryReplay implements HistoryVisitor {
+
+    public static final int EXAMPLE_COUNT = 10; // changed hands kept as examples
+
+    private final DealerPattern[] patterns;
+
+    private final long[] hands; // per round: hands replayed in a round known from the log
+    private final long[] changed; // per round: hands the dealer now chooses differently from
+    private final long[] matched; // per round: hands given to the round because its pattern chooses the same cards
+    private long matchedRuns; // runs given to a round that way
+    private long unattributed; // hands no round could be found for
+    private long sessions;
+    private final List<String> examples = new ArrayList<>();
+
+    // the run of hands being collected, as PackedHands and the cards recorded as chosen
+    private long[] runHands = new long[64];
+    private long[] runChosen = new long[64];
+    private int runLength;
+    private int lastWon; // the last round won in this session, 0 if none yet
+
+    /**
+     * @param patterns the dealer's pattern for each round, round 1 first
+     */
+    public HistoryReplay(DealerPattern[] patterns) {
+        this.patterns = patterns.clone();
+        this.hands = new long[patterns.length + 1];
+        this.changed = new long[patterns.length + 1];
+        this.matched = new long[patterns.length + 1];
+    }
+
+    /**
+     * Replays a whole file. Runs are only finished at the end of the file, so files can be replayed in order.
+     * @param file a CardsDealt.txt
+     * @throws IOException if the file cannot be read
+     */
+    public void replay(Path file) throws IOException {
+        MappedHistoryReader.read(file, this);
+        finishRun(0);
+    }
+
+    @Override
+    public void sessionStarted(LocalDate date) {
+        finishRun(0);
+        sessions++;
+        lastWon = 0;
+    }
+
+    @Override
+    public void hand(int[] ordinals, int size, long chosenPositions) {
+        long hand = PackedHand.EMPTY;
+        long chosen = PackedHand.EMPTY;
+        for (int i = 0; i < size; i++) {
+            long card = 1L << ordinals[i];
+            hand |= card;
+            if ((chosenPositions & (1L << i)) != 0) {
+                chosen |= card;
+            }
+        }
+        if (runLength == runHands.length) {
+            runHands = Arrays.copyOf(runHands, 2 * runLength);
+            runChosen = Arrays.copyOf(runChosen, 2 * runLength);
+        }
+        runHands[runLength] = hand;
+        runChosen[runLength++] = chosen;
+    }
+
+    @Override
+    public void roundWon(int pattern) {
+        finishRun(pattern);
+        lastWon = pattern;
+    }
+
+    @Override
+    public void text(String line) {
+    }
+
+    /**
+     * Replays the run of hands collected so far.
+     * @param round the round the run was won in, or 0 if it was not won
+     */
+    private void finishRun(int round) {
+        if (runLength == 0) {
+            return;
+        }
+        if (round < 1 || round > patterns.length) {
+            round = lastWon > 0 && lastWon < patterns.length ? lastWon + 1 : 0;
+        }
+        if (round == 0) {
+            int match = matchingRound();
+            if (match == 0) {
+                unattributed += runLength;
+            } else {
+                matched[match] += runLength;
+                matchedRuns++;
+            }
+        } else {
+            DealerPattern pattern = patterns[round - 1];
+            for (int i = 0; i < runLength; i++) {
+                long now = pattern.select(runHands[i]);
+                if (now != runChosen[i]) {
+                    changed[round]++;
+                    if (examples.size() < EXAMPLE_COUNT) {
+                        examples.add("round " + round + ": "
+                                + PackedHand.toHand(runHands[i]).format_hand_for_logger(runChosen[i]) + " is now "
+                                + PackedHand.toHand(runHands[i]).format_hand_for_logger(now));
+                    }
+                }
+            }
+            hands[round] += runLength;
+        }
+        runLength = 0;
+    }
+
+    /**
+     * @return the first round whose pattern chooses the recorded cards from every hand of the run, or 0
+     */
+    private int matchingRound() {
+        for (int round = 1; round <= patterns.length; round++) {
+            boolean matches = true;
+            for (int i = 0; i < runLength && matches; i++) {
+                matches = patterns[round - 1].select(runHands[i]) == runChosen[i];
+            }
+            if (matches) {
+                return round;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param round a round
+     * @return the number of hands replayed in it, not counting matched ones
+     */
+    public long getHands(int round) {
+        return hands[round];
+    }
+
+    /**
+     * @param round a round
+     * @return the number of hands in it the dealer now chooses differently from
+     */
+    public long getChanged(int round) {
+        return changed[round];
+    }
+
+    /**
+     * @param round a round
+     * @return the number of hands given to it only because its pattern chooses the recorded cards
+     */
+    public long getMatched(int round) {
+        return matched[round];
+    }
+
+    /**
+     * @return the number of runs given to a round only because its pattern chooses the recorded cards
+     */
+    public long getMatchedRuns() {
+        return matchedRuns;
+    }
+
+    /**
+     * @return the number of hands no round could be found for
+     */
+    public long getUnattributed() {
+        return unattributed;
+    }
+
+    /**
+     * @return whether any hand's verdict changed
+     */
+    public boolean hasChanges() {
+        for (long count : changed) {
+            if (count > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether no hand's verdict changed and every hand was attributed to a round
+     */
+    public boolean passes() {
+        return !hasChanges() && unattributed == 0;
+    }
+
+    /**
+     * @return up to EXAMPLE_COUNT changed hands, each as recorded and as chosen now
+     */
+    public List<String> getExamples() {
+        return examples;
+    }
+
+    /**
+     * Replays the given files with the current patterns and prints what changed.
+     * @param args the CardsDealt.txt files, oldest first
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: HistoryReplay CardsDealt.txt...");
+            System.exit(2);
+        }
+        HistoryReplay replay = new HistoryReplay(PatternRules.loadDefault());
+        long start = System.nanoTime();
+        for (String file : args) {
+            replay.replay(Paths.get(file));
+        }
+        System.out.printf(Locale.ROOT, "%d sessions, %.2f s%n", replay.sessions, (System.nanoTime() - start) / 1e9);
+        for (int round = 1; round < replay.hands.length; round++) {
+            if (replay.getHands(round) > 0 || replay.getMatched(round) > 0) {
+                System.out.printf(Locale.ROOT, "round %2d  %,12d hands  %,10d changed  %,10d matched%n", round,
+                        replay.getHands(round), replay.getChanged(round), replay.getMatched(round));
+            }
+        }
+        System.out.printf(Locale.ROOT, "matched %,d runs, not checked%n", replay.getMatchedRuns());
+        System.out.printf(Locale.ROOT, "unattributed %,d hands%n", replay.getUnattributed());
+        replay.getExamples().forEach(System.out::println);
+        if (!replay.passes()) {
+            System.exit(1);
+        }
+    }
+}
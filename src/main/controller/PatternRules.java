@@ -0,0 +1,626 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * PatternRules compiles dealer patterns written in a small rule language into {@link DealerPattern}s. Card
+ * filters that do not depend on the hand are folded into a single 52-bit mask when the rule is compiled, so a rule
+ * such as "select color is red" runs as one AND. Compiled rules only use primitive longs and do not allocate.
+ *
+ * <pre>
+ * rule       := "select" selection ["if" condition]
+ * selection  := cards | "largest subset of" cards "summing to" N ["counting aces as" N]
+ *                         ["with at least" N "cards"]          see {@link SubsetSum}, aces count 1 by default
+ * cards      := card ("and" | "or" card)*          "and" binds tighter than "or"
+ * card       := "all" | "not" card | "(" cards ")"
+ *             | "suit" ["is" ["not"] SUIT | ["not"] "in" "{" SUIT, ... "}"]
+ *             | "color is" ["not"] ("red" | "black")
+ *             | "rank is" ["not"] (RANK | "face" | "prime" | "highest" | "lowest")
+ *             | "rank" ["not"] "in" "{" RANK ["..", RANK], ... "}"
+ *             | "rank" ("=" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=") RANK
+ * condition  := test ("and" | "or" test)*
+ * test       := "not" test | "(" condition ")" | "same suit" | "same rank"
+ *             | "consecutive"                        distinct ranks in a run, ace high
+ *             | "spaced" N                           distinct ranks N apart, ace low
+ *             | "count(" cards ")" COMPARISON N | "size" COMPARISON N
+ *             | "sum" COMPARISON N                   the ranks added up, ace 1
+ *             | ("every" | "any" | "no") card
+ * </pre>
+ *
+ * Ranks are ace (1) to king (13), written as numbers, names such as "queen", or the letters A, J, Q, and K.
+ * Prime ranks are 2, 3, 5, 7, jack (11) and king (13). Words are not case sensitive.
+ */
+public final class PatternRules {
+
+    public static final String RULES_FILE = "DealerPatterns.rules"; // a designer's patterns, used over the built-in ones
+
+    private static final String RULES_RESOURCE = "/main/resources/DealerPatterns.rules";
+
+    private static final long PRIME_RANKS = PackedHand.TWOS | PackedHand.THREES | PackedHand.FIVES
+            | PackedHand.SEVENS | PackedHand.JACKS | PackedHand.KINGS;
+
+    private static final String[] RANK_NAMES = {"ace", "two", "three", "four", "five", "six", "seven", "eight",
+            "nine", "ten", "jack", "queen", "king"};
+    private static final String[] RANK_LETTERS = {"a", null, null, null, null, null, null, null, null, null, "j",
+            "q", "k"};
+    private static final String[] SUIT_NAMES = {"clubs", "diamonds", "hearts", "spades"};
+
+    // comparison operators
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int LE = 3;
+    private static final int GT = 4;
+    private static final int GE = 5;
+
+    private PatternRules() {
+    }
+
+    /**
+     * @param rule a rule, such as "select all if same suit and consecutive"
+     * @return the compiled pattern
+     * @throws IllegalArgumentException if the rule is not valid, saying where
+     */
+    public static DealerPattern compile(String rule) {
+        return new Parser(rule).rule();
+    }
+
+    /**
+     * Reads numbered rules, one per line as "number: rule". Blank lines and lines starting with '#' are skipped.
+     * @param in the rules
+     * @return the compiled patterns, pattern 1 first
+     * @throws IOException if the rules cannot be read
+     * @throws IllegalArgumentException if a rule is not valid or the patterns are not numbered 1 to n
+     */
+    public static DealerPattern[] load(Reader in) throws IOException {
+        TreeMap<Integer, DealerPattern> patterns = new TreeMap<>();
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            try {
+                if (colon < 0) {
+                    throw new IllegalArgumentException("expected 'number: rule'");
+                }
+                int number = Integer.parseInt(line.substring(0, colon).trim());
+                if (patterns.put(number, compile(line.substring(colon + 1))) != null) {
+                    throw new IllegalArgumentException("pattern " + number + " is defined twice");
+                }
+            } catch (IllegalArgumentException e) { // includes NumberFormatException
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if (patterns.isEmpty() || patterns.firstKey() != 1 || patterns.lastKey() != patterns.size()) {
+            throw new IllegalArgumentException("Patterns must be numbered 1 to n, found " + patterns.keySet());
+        }
+        return patterns.values().toArray(new DealerPattern[0]);
+    }
+
+    /**
+     * @param rules numbered rules, as read by {@link #load(Reader)}
+     * @return the compiled patterns, pattern 1 first
+     * @throws IllegalArgumentException if a rule is not valid or the patterns are not numbered 1 to n
+     */
+    public static DealerPattern[] load(String rules) {
+        try {
+            return load(new StringReader(rules));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringReader does not throw
+        }
+    }
+
+    /**
+     * @return the patterns in {@link #RULES_FILE} in the working directory if there is one, otherwise the
+     * patterns the game ships with
+     */
+    public static DealerPattern[] loadDefault() {
+        return load(readDefault());
+    }
+
+    /**
+     * @return the text of the rules {@link #loadDefault()} compiles, e.g. to check what a verdict table was built
+     * from
+     */
+    public static String readDefault() {
+        Path file = Paths.get(RULES_FILE);
+        try {
+            if (Files.exists(file)) {
+                return Files.readString(file, StandardCharsets.UTF_8);
+            }
+            try (InputStream in = Objects.requireNonNull(PatternRules.class.getResourceAsStream(RULES_RESOURCE),
+                    RULES_RESOURCE)) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read dealer patterns", e);
+        }
+    }
+
+    /**
+     * A set of cards, either a fixed mask or one worked out from the hand.
+     */
+    private static final class Cards {
+        final long mask; // the cards, when fixed
+        final LongUnaryOperator fromHand; // null when the cards are fixed
+
+        private Cards(long mask, LongUnaryOperator fromHand) {
+            this.mask = mask;
+            this.fromHand = fromHand;
+        }
+
+        static Cards of(long mask) {
+            return new Cards(mask, null);
+        }
+
+        static Cards of(LongUnaryOperator fromHand) {
+            return new Cards(0, fromHand);
+        }
+
+        LongUnaryOperator operator() {
+            if (fromHand != null) {
+                return fromHand;
+            }
+            long cards = mask;
+            return hand -> cards;
+        }
+
+        Cards and(Cards other) {
+            if (fromHand == null && other.fromHand == null) {
+                return of(mask & other.mask);
+            }
+            LongUnaryOperator a = operator();
+            LongUnaryOperator b = other.operator();
+            return of(hand -> a.applyAsLong(hand) & b.applyAsLong(hand));
+        }
+
+        Cards or(Cards other) {
+            if (fromHand == null && other.fromHand == null) {
+                return of(mask | other.mask);
+            }
+            LongUnaryOperator a = operator();
+            LongUnaryOperator b = other.operator();
+            return of(hand -> a.applyAsLong(hand) | b.applyAsLong(hand));
+        }
+
+        Cards not() {
+            if (fromHand == null) {
+                return of(PackedHand.FULL_DECK & ~mask);
+            }
+            LongUnaryOperator a = fromHand;
+            return of(hand -> PackedHand.FULL_DECK & ~a.applyAsLong(hand));
+        }
+
+        /**
+         * @return the cards of the hand that are in this set
+         */
+        LongUnaryOperator inHand() {
+            if (fromHand == null) {
+                long cards = mask;
+                return hand -> hand & cards;
+            }
+            LongUnaryOperator a = fromHand;
+            return hand -> hand & a.applyAsLong(hand);
+        }
+    }
+
+    /**
+     * A recursive descent parser that compiles as it parses.
+     */
+    private static final class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        private final List<Integer> columns = new ArrayList<>();
+        private int next;
+
+        Parser(String rule) {
+            int i = 0;
+            while (i < rule.length()) {
+                char c = rule.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                } else if (Character.isLetter(c)) {
+                    while (i < rule.length() && Character.isLetter(rule.charAt(i))) {
+                        i++;
+                    }
+                } else if (Character.isDigit(c)) {
+                    while (i < rule.length() && Character.isDigit(rule.charAt(i))) {
+                        i++;
+                    }
+                } else if (rule.startsWith("..", i) || rule.startsWith("<=", i) || rule.startsWith(">=", i)
+                        || rule.startsWith("!=", i)) {
+                    i += 2;
+                } else if ("{}(),<>=".indexOf(c) >= 0) {
+                    i++;
+                } else {
+                    throw error("unexpected '" + c + "'", i);
+                }
+                tokens.add(rule.substring(start, i).toLowerCase(Locale.ROOT));
+                columns.add(start + 1);
+            }
+        }
+
+        DealerPattern rule() {
+            expect("select");
+            DealerPattern pattern;
+            if (accept("largest")) {
+                expect("subset");
+                expect("of");
+                Cards candidates = cards();
+                expect("summing");
+                expect("to");
+                int target = number();
+                int aceValue = 1;
+                if (accept("counting")) {
+                    expect("aces");
+                    expect("as");
+                    aceValue = number();
+                }
+                int minSize = 1;
+                if (accept("with")) {
+                    expect("at");
+                    expect("least");
+                    minSize = number();
+                    expect("cards");
+                }
+                SubsetSum subsetSum = new SubsetSum(target, aceValue, minSize);
+                LongUnaryOperator pool = candidates.inHand();
+                pattern = hand -> subsetSum.largest(pool.applyAsLong(hand));
+            } else {
+                Cards cards = cards();
+                if (cards.fromHand == null) {
+                    long mask = cards.mask;
+                    pattern = hand -> hand & mask;
+                } else {
+                    LongUnaryOperator fromHand = cards.fromHand;
+                    pattern = hand -> hand & fromHand.applyAsLong(hand);
+                }
+            }
+            if (accept("if")) {
+                LongPredicate condition = condition();
+                DealerPattern selection = pattern;
+                pattern = hand -> condition.test(hand) ? selection.select(hand) : PackedHand.EMPTY;
+            }
+            if (next < tokens.size()) {
+                throw error("unexpected '" + tokens.get(next) + "'");
+            }
+            return pattern;
+        }
+
+        /******************************* CARDS **********************************************/
+
+        private Cards cards() {
+            Cards cards = cardTerm();
+            while (accept("or")) {
+                cards = cards.or(cardTerm());
+            }
+            return cards;
+        }
+
+        private Cards cardTerm() {
+            Cards cards = card();
+            while (accept("and")) {
+                cards = cards.and(card());
+            }
+            return cards;
+        }
+
+        private Cards card() {
+            if (accept("all")) {
+                return Cards.of(PackedHand.FULL_DECK);
+            } else if (accept("not")) {
+                return card().not();
+            } else if (accept("(")) {
+                Cards cards = cards();
+                expect(")");
+                return cards;
+            } else if (accept("suit")) {
+                return suit();
+            } else if (accept("color")) {
+                expect("is");
+                boolean not = accept("not");
+                long color = PackedHand.RED;
+                if (!accept("red")) {
+                    expectAny("black", "red or black");
+                    color = PackedHand.BLACK;
+                }
+                return not ? Cards.of(color).not() : Cards.of(color);
+            } else if (accept("rank")) {
+                return rank();
+            }
+            throw error("expected a card filter");
+        }
+
+        private Cards suit() {
+            boolean not;
+            long suits = 0;
+            if (accept("is")) {
+                not = accept("not");
+                suits = suitMask();
+            } else {
+                not = accept("not");
+                expect("in");
+                expect("{");
+                do {
+                    suits |= suitMask();
+                } while (accept(","));
+                expect("}");
+            }
+            return not ? Cards.of(suits).not() : Cards.of(suits);
+        }
+
+        private Cards rank() {
+            if (accept("is")) {
+                boolean not = accept("not");
+                Cards cards;
+                if (accept("face")) {
+                    cards = Cards.of(PackedHand.FACE_CARDS);
+                } else if (accept("prime")) {
+                    cards = Cards.of(PRIME_RANKS);
+                } else if (accept("highest")) {
+                    cards = Cards.of(hand -> {
+                        int ranks = PackedHand.rankSet(hand);
+                        return ranks == 0 ? 0 : PackedHand.ACES << (31 - Integer.numberOfLeadingZeros(ranks));
+                    });
+                } else if (accept("lowest")) {
+                    cards = Cards.of(hand -> {
+                        int ranks = PackedHand.rankSet(hand);
+                        return ranks == 0 ? 0 : PackedHand.ACES << Integer.numberOfTrailingZeros(ranks);
+                    });
+                } else {
+                    cards = Cards.of(rankMask(rankValue()));
+                }
+                return not ? cards.not() : cards;
+            }
+            boolean not = accept("not");
+            if (not || peek("in")) {
+                expect("in");
+                expect("{");
+                long ranks = 0;
+                do {
+                    int from = rankValue();
+                    int to = accept("..") ? rankValue() : from;
+                    if (to < from) {
+                        throw error("empty rank range " + from + ".." + to, columns.get(next - 1));
+                    }
+                    for (int value = from; value <= to; value++) {
+                        ranks |= rankMask(value);
+                    }
+                } while (accept(","));
+                expect("}");
+                return not ? Cards.of(ranks).not() : Cards.of(ranks);
+            }
+            int comparison = comparison();
+            int value = rankValue();
+            long ranks = 0;
+            for (int rank = 1; rank <= PackedHand.RANK_COUNT; rank++) {
+                if (compare(rank, comparison, value)) {
+                    ranks |= rankMask(rank);
+                }
+            }
+            return Cards.of(ranks);
+        }
+
+        /******************************* CONDITIONS **********************************************/
+
+        private LongPredicate condition() {
+            LongPredicate condition = conditionTerm();
+            while (accept("or")) {
+                LongPredicate a = condition;
+                LongPredicate b = conditionTerm();
+                condition = hand -> a.test(hand) || b.test(hand);
+            }
+            return condition;
+        }
+
+        private LongPredicate conditionTerm() {
+            LongPredicate condition = test();
+            while (accept("and")) {
+                LongPredicate a = condition;
+                LongPredicate b = test();
+                condition = hand -> a.test(hand) && b.test(hand);
+            }
+            return condition;
+        }
+
+        private LongPredicate test() {
+            if (accept("not")) {
+                LongPredicate a = test();
+                return hand -> !a.test(hand);
+            } else if (accept("(")) {
+                LongPredicate condition = condition();
+                expect(")");
+                return condition;
+            } else if (accept("same")) {
+                if (accept("suit")) {
+                    return hand -> Integer.bitCount(PackedHand.suitSet(hand)) == 1;
+                }
+                expectAny("rank", "suit or rank");
+                return hand -> Integer.bitCount(PackedHand.rankSet(hand)) == 1;
+            } else if (accept("consecutive")) {
+                return hand -> {
+                    int ranks = PackedHand.rankSet(hand);
+                    int aceHigh = (ranks >>> 1) | ((ranks & 1) << (PackedHand.RANK_COUNT - 1));
+                    return ranks != 0 && Integer.bitCount(ranks) == PackedHand.size(hand)
+                            && isRun(aceHigh, 1);
+                };
+            } else if (accept("spaced")) {
+                int step = number();
+                return hand -> {
+                    int ranks = PackedHand.rankSet(hand);
+                    return ranks != 0 && Integer.bitCount(ranks) == PackedHand.size(hand)
+                            && isRun(ranks, step);
+                };
+            } else if (accept("count")) {
+                expect("(");
+                LongUnaryOperator cards = cards().inHand();
+                expect(")");
+                int comparison = comparison();
+                int value = number();
+                return hand -> compare(Long.bitCount(cards.applyAsLong(hand)), comparison, value);
+            } else if (accept("size")) {
+                int comparison = comparison();
+                int value = number();
+                return hand -> compare(Long.bitCount(hand), comparison, value);
+            } else if (accept("sum")) {
+                int comparison = comparison();
+                int value = number();
+                return hand -> compare(PackedHand.rankSum(hand), comparison, value);
+            } else if (accept("every")) {
+                LongUnaryOperator cards = card().inHand();
+                return hand -> cards.applyAsLong(hand) == hand;
+            } else if (accept("any")) {
+                LongUnaryOperator cards = card().inHand();
+                return hand -> cards.applyAsLong(hand) != 0;
+            } else if (accept("no")) {
+                LongUnaryOperator cards = card().inHand();
+                return hand -> cards.applyAsLong(hand) == 0;
+            }
+            throw error("expected a condition");
+        }
+
+        /******************************* TOKENS **********************************************/
+
+        private long suitMask() {
+            String word = take("a suit");
+            for (int suit = 0; suit < SUIT_NAMES.length; suit++) {
+                // plural or singular
+                if (word.equals(SUIT_NAMES[suit])
+                        || word.equals(SUIT_NAMES[suit].substring(0, SUIT_NAMES[suit].length() - 1))) {
+                    return PackedHand.CLUBS << (suit * PackedHand.RANK_COUNT);
+                }
+            }
+            throw error("expected a suit but found '" + word + "'", columns.get(next - 1));
+        }
+
+        /**
+         * @return the value of a rank, ace 1 to king 13
+         */
+        private int rankValue() {
+            String word = take("a rank");
+            for (int rank = 0; rank < PackedHand.RANK_COUNT; rank++) {
+                if (word.equals(RANK_NAMES[rank]) || word.equals(RANK_LETTERS[rank])
+                        || word.equals(Integer.toString(rank + 1))) {
+                    return rank + 1;
+                }
+            }
+            throw error("expected a rank but found '" + word + "'", columns.get(next - 1));
+        }
+
+        private int number() {
+            String word = take("a number");
+            if (!Character.isDigit(word.charAt(0)) || word.length() > 9) {
+                throw error("expected a number but found '" + word + "'", columns.get(next - 1));
+            }
+            return Integer.parseInt(word);
+        }
+
+        private int comparison() {
+            String word = take("a comparison");
+            return switch (word) {
+                case "=" -> EQ;
+                case "!=" -> NE;
+                case "<" -> LT;
+                case "<=" -> LE;
+                case ">" -> GT;
+                case ">=" -> GE;
+                default -> throw error("expected a comparison but found '" + word + "'", columns.get(next - 1));
+            };
+        }
+
+        private boolean peek(String word) {
+            return next < tokens.size() && tokens.get(next).equals(word);
+        }
+
+        private boolean accept(String word) {
+            if (peek(word)) {
+                next++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String word) {
+            expectAny(word, "'" + word + "'");
+        }
+
+        private void expectAny(String word, String description) {
+            if (!accept(word)) {
+                throw error("expected " + description + (next < tokens.size()
+                        ? " but found '" + tokens.get(next) + "'" : " but the rule ended"));
+            }
+        }
+
+        private String take(String description) {
+            if (next == tokens.size()) {
+                throw error("expected " + description + " but the rule ended");
+            }
+            return tokens.get(next++);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return error(message, next < columns.size() ? columns.get(next) : -1);
+        }
+
+        private static IllegalArgumentException error(String message, int column) {
+            return new IllegalArgumentException(column < 0 ? message : message + " at column " + column);
+        }
+    }
+
+    private static long rankMask(int value) {
+        return PackedHand.ACES << (value - 1);
+    }
+
+    /**
+     * @param ranks a set of rank bits
+     * @param step the distance between neighbouring ranks
+     * @return whether the set bits are evenly spaced by step, starting from the lowest one
+     */
+    private static boolean isRun(int ranks, int step) {
+        int bits = ranks >>> Integer.numberOfTrailingZeros(ranks);
+        int run = 0;
+        for (int i = 0; i < Integer.bitCount(ranks); i++) {
+            run |= 1 << (i * step);
+        }
+        return bits == run;
+    }
+
+    private static boolean compare(int a, int comparison, int b) {
+        return switch (comparison) {
+            case EQ -> a == b;
+            case NE -> a != b;
+            case LT -> a < b;
+            case LE -> a <= b;
+            case GT -> a > b;
+            default -> a >= b;
+        };
+    }
+}
@@ -0,0 +1,510 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+import main.model.Rank;
+import main.model.Suit;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * PatternSolver works out the dealer's pattern from the hands played and the cards the dealer chose, by ruling
+ * out every candidate rule that would have chosen differently. Each candidate has one bit saying whether it is
+ * still consistent. The candidates are:
+ * <ul>
+ *     <li>Every card filter "suit in S and rank in R", for each of the 16 suit sets and 8192 rank sets. These
+ *     cover suit, color, rank, parity, prime and range rules.</li>
+ *     <li>The built-in patterns, by default the ones the game plays.</li>
+ *     <li>"select all if sum = t", "sum &lt;= t" and "sum &gt;= t" for every t up to the largest possible sum.</li>
+ *     <li>"select largest subset of all summing to t", for t from 2 to 40 and aces counting 1 or 11.</li>
+ * </ul>
+ * The card filters are kept as one 8192-bit block per suit set, bit R of block S being the filter for S and R.
+ * An observation narrows a block down to the rank sets holding every chosen rank and no rank the dealer left in
+ * a suit of S, by ANDing it with a precomputed block per rank. The sum rules are bitsets indexed by t and are
+ * narrowed with a single range mask. The other candidates are evaluated one by one, but only while they are still
+ * consistent. Candidates are numbered in the order above.
+ *
+ * A solver is not thread-safe; use one per game being solved.
+ */
+public final class PatternSolver {
+
+    private static final int SUIT_SETS = 1 << PackedHand.SUIT_COUNT;
+    private static final int RANK_SETS = 1 << PackedHand.RANK_COUNT;
+    private static final int BLOCK_WORDS = RANK_SETS / Long.SIZE; // words in the block of one suit set
+
+    public static final int FILTER_COUNT = SUIT_SETS * RANK_SETS; // card filter candidates
+    public static final int MAX_SUM = PackedHand.rankSum(PackedHand.FULL_DECK); // the sum of the whole deck
+    public static final int MAX_SUBSET_TARGET = 40;
+
+    private static final int[] ACE_VALUES = {1, 11};
+    private static final int SUM_WORDS = MAX_SUM / Long.SIZE + 1;
+
+    // WITH_RANK[r] is the block with bit R set for every rank set R holding rank ordinal r, WITHOUT_RANK[r] the rest
+    private static final long[][] WITH_RANK = new long[PackedHand.RANK_COUNT][BLOCK_WORDS];
+    private static final long[][] WITHOUT_RANK = new long[PackedHand.RANK_COUNT][BLOCK_WORDS];
+
+    static {
+        for (int rank = 0; rank < PackedHand.RANK_COUNT; rank++) {
+            for (int rankSet = 0; rankSet < RANK_SETS; rankSet++) {
+                if ((rankSet & (1 << rank)) != 0) {
+                    WITH_RANK[rank][rankSet >>> 6] |= 1L << rankSet;
+                }
+            }
+            for (int word = 0; word < BLOCK_WORDS; word++) {
+                WITHOUT_RANK[rank][word] = ~WITH_RANK[rank][word];
+            }
+        }
+    }
+
+    private final DealerPattern[] builtIns;
+    private final SubsetSum[] subsetSums; // target 2 with ace 1, target 2 with ace 11, target 3 with ace 1, ...
+
+    // consistency bits
+    private final long[] filters = new long[SUIT_SETS * BLOCK_WORDS]; // block S at S * BLOCK_WORDS
+    private final boolean[] filterBlockAlive = new boolean[SUIT_SETS]; // false once a block is all zeros
+    private final boolean[] builtInAlive;
+    private final long[] sumEquals = new long[SUM_WORDS]; // bit t: "select all if sum = t"
+    private final long[] sumAtMost = new long[SUM_WORDS]; // bit t: "select all if sum <= t"
+    private final long[] sumAtLeast = new long[SUM_WORDS]; // bit t: "select all if sum >= t"
+    private final boolean[] subsetAlive;
+
+    private int observations;
+
+    /**
+     * Creates a solver whose built-in candidates are the patterns the game plays, from
+     * {@link PatternRules#loadDefault()}.
+     */
+    public PatternSolver() {
+        this(PatternRules.loadDefault());
+    }
+
+    /**
+     * @param builtIns the patterns to consider besides the generated ones, e.g. a pattern under test
+     */
+    public PatternSolver(DealerPattern[] builtIns) {
+        this.builtIns = builtIns.clone();
+        this.builtInAlive = new boolean[builtIns.length];
+        this.subsetSums = new SubsetSum[(MAX_SUBSET_TARGET - 1) * ACE_VALUES.length];
+        for (int i = 0; i < subsetSums.length; i++) {
+            subsetSums[i] = new SubsetSum(i / ACE_VALUES.length + 2, ACE_VALUES[i % ACE_VALUES.length], 1);
+        }
+        this.subsetAlive = new boolean[subsetSums.length];
+        reset();
+    }
+
+    /**
+     * Makes every candidate consistent again.
+     */
+    public void reset() {
+        Arrays.fill(filters, -1L);
+        Arrays.fill(filterBlockAlive, true);
+        Arrays.fill(builtInAlive, true);
+        setRange(sumEquals, 0, MAX_SUM);
+        setRange(sumAtMost, 0, MAX_SUM);
+        setRange(sumAtLeast, 0, MAX_SUM);
+        Arrays.fill(subsetAlive, true);
+        observations = 0;
+    }
+
+    /**
+     * Rules out every candidate that would not have chosen exactly these cards from this hand.
+     * @param hand the hand played, as a PackedHand
+     * @param chosen the cards the dealer chose from it
+     */
+    public void observe(long hand, long chosen) {
+        if ((chosen & ~hand) != 0) {
+            throw new IllegalArgumentException("The dealer chose cards that are not in the hand");
+        }
+        observations++;
+        observeFilters(hand, chosen);
+
+        for (int i = 0; i < builtIns.length; i++) {
+            if (builtInAlive[i] && builtIns[i].select(hand) != chosen) {
+                builtInAlive[i] = false;
+            }
+        }
+
+        int sum = PackedHand.rankSum(hand);
+        if (hand == PackedHand.EMPTY) { // every rule chooses nothing from no cards
+            observeSubsets(hand, chosen);
+            return;
+        }
+        if (chosen == hand) { // the dealer chose every card, so the "select all" rule held
+            keepRange(sumEquals, sum, sum);
+            keepRange(sumAtMost, sum, MAX_SUM);
+            keepRange(sumAtLeast, 0, sum);
+        } else if (chosen == PackedHand.EMPTY) {
+            clearRange(sumEquals, sum, sum);
+            clearRange(sumAtMost, sum, MAX_SUM);
+            clearRange(sumAtLeast, 0, sum);
+        } else { // the dealer chose some of the cards, which no "select all" rule does
+            Arrays.fill(sumEquals, 0);
+            Arrays.fill(sumAtMost, 0);
+            Arrays.fill(sumAtLeast, 0);
+        }
+
+        observeSubsets(hand, chosen);
+    }
+
+    private void observeSubsets(long hand, long chosen) {
+        for (int i = 0; i < subsetSums.length; i++) {
+            if (subsetAlive[i] && subsetSums[i].largest(hand) != chosen) {
+                subsetAlive[i] = false;
+            }
+        }
+    }
+
+    /**
+     * For suit set S, the filter "suit in S and rank in R" chose exactly these cards if every chosen card's suit is
+     * in S and its rank in R, and no card left in a suit of S has a rank in R.
+     */
+    private void observeFilters(long hand, long chosen) {
+        int chosenSuits = PackedHand.suitSet(chosen);
+        int chosenRanks = PackedHand.rankSet(chosen);
+        for (int suits = 0; suits < SUIT_SETS; suits++) {
+            if (!filterBlockAlive[suits]) {
+                continue;
+            }
+            int offset = suits * BLOCK_WORDS;
+            int leftRanks = PackedHand.rankSet(hand & ~chosen & suitsMask(suits));
+            if ((chosenSuits & ~suits) != 0 || (chosenRanks & leftRanks) != 0) {
+                Arrays.fill(filters, offset, offset + BLOCK_WORDS, 0);
+                filterBlockAlive[suits] = false;
+                continue;
+            }
+            // one simple loop per rank, which the JIT compiles to SIMD instructions
+            for (int ranks = chosenRanks; ranks != 0; ranks &= ranks - 1) {
+                and(filters, offset, WITH_RANK[Integer.numberOfTrailingZeros(ranks)]);
+            }
+            for (int ranks = leftRanks; ranks != 0; ranks &= ranks - 1) {
+                and(filters, offset, WITHOUT_RANK[Integer.numberOfTrailingZeros(ranks)]);
+            }
+            long any = 0;
+            for (int word = 0; word < BLOCK_WORDS; word++) {
+                any |= filters[offset + word];
+            }
+            filterBlockAlive[suits] = any != 0;
+        }
+    }
+
+    /**
+     * @return the number of hands observed since the solver was created or reset
+     */
+    public int getObservations() {
+        return observations;
+    }
+
+    /**
+     * @return the number of candidate rules
+     */
+    public int candidateCount() {
+        return FILTER_COUNT + builtIns.length + 3 * (MAX_SUM + 1) + subsetSums.length;
+    }
+
+    /**
+     * @return the number of candidates consistent with every observation so far
+     */
+    public int countConsistent() {
+        int count = 0;
+        for (long word : filters) {
+            count += Long.bitCount(word);
+        }
+        for (boolean alive : builtInAlive) {
+            count += alive ? 1 : 0;
+        }
+        for (int word = 0; word < SUM_WORDS; word++) {
+            count += Long.bitCount(sumEquals[word]) + Long.bitCount(sumAtMost[word])
+                    + Long.bitCount(sumAtLeast[word]);
+        }
+        for (boolean alive : subsetAlive) {
+            count += alive ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Lets callers walk the consistent candidates without allocating: {@code for (int c = nextConsistent(0);
+     * c >= 0; c = nextConsistent(c + 1))}.
+     * @param from the first candidate to look at
+     * @return the first consistent candidate from there on, or -1 if there is none
+     */
+    public int nextConsistent(int from) {
+        int candidate = Math.max(0, from);
+        if (candidate < FILTER_COUNT) {
+            int next = nextSetBit(filters, candidate, FILTER_COUNT);
+            if (next >= 0) {
+                return next;
+            }
+            candidate = FILTER_COUNT;
+        }
+        int index = candidate - FILTER_COUNT;
+        for (; index < builtIns.length; index++) {
+            if (builtInAlive[index]) {
+                return FILTER_COUNT + index;
+            }
+        }
+        index -= builtIns.length;
+        for (int rule = 0; rule < 3; rule++) {
+            if (index <= MAX_SUM) {
+                int next = nextSetBit(sumRule(rule), index, MAX_SUM + 1);
+                if (next >= 0) {
+                    return FILTER_COUNT + builtIns.length + rule * (MAX_SUM + 1) + next;
+                }
+                index = 0;
+            } else {
+                index -= MAX_SUM + 1;
+            }
+        }
+        for (; index < subsetSums.length; index++) {
+            if (subsetAlive[index]) {
+                return FILTER_COUNT + builtIns.length + 3 * (MAX_SUM + 1) + index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lets a bot pick a consistent candidate at random, counting the card filters a word at a time.
+     * @param n which consistent candidate to return, from 0 to countConsistent() - 1
+     * @return the nth consistent candidate, or -1 if there are not that many
+     */
+    public int nthConsistent(int n) {
+        if (n < 0) {
+            return -1;
+        }
+        for (int suits = 0; suits < SUIT_SETS; suits++) {
+            if (!filterBlockAlive[suits]) {
+                continue;
+            }
+            for (int word = suits * BLOCK_WORDS; word < (suits + 1) * BLOCK_WORDS; word++) {
+                long bits = filters[word];
+                int count = Long.bitCount(bits);
+                if (n < count) {
+                    for (; n > 0; n--) {
+                        bits &= bits - 1;
+                    }
+                    return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                }
+                n -= count;
+            }
+        }
+        for (int candidate = nextConsistent(FILTER_COUNT); candidate >= 0; candidate = nextConsistent(candidate + 1)) {
+            if (n-- == 0) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param candidate a candidate rule
+     * @param hand a hand, as a PackedHand
+     * @return the cards the candidate would choose from the hand
+     */
+    public long select(int candidate, long hand) {
+        if (candidate < FILTER_COUNT) {
+            return hand & filterMask(candidate / RANK_SETS, candidate % RANK_SETS);
+        }
+        int index = candidate - FILTER_COUNT;
+        if (index < builtIns.length) {
+            return builtIns[index].select(hand);
+        }
+        index -= builtIns.length;
+        if (index < 3 * (MAX_SUM + 1)) {
+            int sum = PackedHand.rankSum(hand);
+            int t = index % (MAX_SUM + 1);
+            boolean all = switch (index / (MAX_SUM + 1)) {
+                case 0 -> sum == t;
+                case 1 -> sum <= t;
+                default -> sum >= t;
+            };
+            return all ? hand : PackedHand.EMPTY;
+        }
+        return subsetSums[index - 3 * (MAX_SUM + 1)].largest(hand);
+    }
+
+    /**
+     * @param hand a hand, as a PackedHand
+     * @return the cards the first consistent candidate would choose, or no cards if no candidate is consistent
+     */
+    public long predict(long hand) {
+        int candidate = nextConsistent(0);
+        return candidate < 0 ? PackedHand.EMPTY : select(candidate, hand);
+    }
+
+    /**
+     * How many of the consistent candidates would choose every card of the hand. A bot plays the hand the most
+     * candidates accept. The card filters are counted a block at a time.
+     * @param hand a hand, as a PackedHand
+     * @return the number of consistent candidates choosing the whole hand
+     */
+    public int countAccepting(long hand) {
+        int count = 0;
+        int handSuits = PackedHand.suitSet(hand);
+        int handRanks = PackedHand.rankSet(hand);
+        for (int suits = 0; suits < SUIT_SETS; suits++) {
+            // a filter chooses the whole hand if its suits and ranks hold all the hand's
+            if (!filterBlockAlive[suits] || (handSuits & ~suits) != 0) {
+                continue;
+            }
+            int offset = suits * BLOCK_WORDS;
+            for (int word = 0; word < BLOCK_WORDS; word++) {
+                long bits = filters[offset + word];
+                for (int ranks = handRanks; ranks != 0 && bits != 0; ranks &= ranks - 1) {
+                    bits &= WITH_RANK[Integer.numberOfTrailingZeros(ranks)][word];
+                }
+                count += Long.bitCount(bits);
+            }
+        }
+        for (int candidate = nextConsistent(FILTER_COUNT); candidate >= 0; candidate = nextConsistent(candidate + 1)) {
+            if (select(candidate, hand) == hand) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param candidate a candidate rule
+     * @return the candidate as a rule PatternRules can compile, or "pattern n" for a built-in pattern
+     */
+    public String describe(int candidate) {
+        if (candidate < FILTER_COUNT) {
+            return describeFilter(candidate / RANK_SETS, candidate % RANK_SETS);
+        }
+        int index = candidate - FILTER_COUNT;
+        if (index < builtIns.length) {
+            return "pattern " + (index + 1);
+        }
+        index -= builtIns.length;
+        if (index < 3 * (MAX_SUM + 1)) {
+            String[] comparisons = {"=", "<=", ">="};
+            return "select all if sum " + comparisons[index / (MAX_SUM + 1)] + " " + index % (MAX_SUM + 1);
+        }
+        index -= 3 * (MAX_SUM + 1);
+        return "select largest subset of all summing to " + (index / ACE_VALUES.length + 2) + " counting aces as "
+                + ACE_VALUES[index % ACE_VALUES.length];
+    }
+
+    /**
+     * @return the bits of sum rule 0 (=), 1 (&lt;=) or 2 (&gt;=)
+     */
+    private long[] sumRule(int rule) {
+        return rule == 0 ? sumEquals : rule == 1 ? sumAtMost : sumAtLeast;
+    }
+
+    private static String describeFilter(int suits, int ranks) {
+        if (suits == 0 || ranks == 0) {
+            return "select not all";
+        }
+        StringJoiner rule = new StringJoiner(" and ", "select ", "");
+        if (suits != SUIT_SETS - 1) {
+            StringJoiner names = new StringJoiner(", ", "suit in {", "}");
+            for (Suit suit : Suit.values()) {
+                if ((suits & (1 << suit.ordinal())) != 0) {
+                    names.add(suit.name().toLowerCase(Locale.ROOT));
+                }
+            }
+            rule.add(names.toString());
+        }
+        if (ranks != RANK_SETS - 1) {
+            StringJoiner names = new StringJoiner(", ", "rank in {", "}");
+            for (Rank rank : Rank.values()) {
+                if ((ranks & (1 << rank.ordinal())) != 0) {
+                    names.add(rank.name().toLowerCase(Locale.ROOT));
+                }
+            }
+            rule.add(names.toString());
+        }
+        return suits == SUIT_SETS - 1 && ranks == RANK_SETS - 1 ? "select all" : rule.toString();
+    }
+
+    private static long filterMask(int suits, int ranks) {
+        long rankMask = 0;
+        for (int rest = ranks; rest != 0; rest &= rest - 1) {
+            rankMask |= PackedHand.ACES << Integer.numberOfTrailingZeros(rest);
+        }
+        return rankMask & suitsMask(suits);
+    }
+
+    private static long suitsMask(int suits) {
+        long mask = 0;
+        for (int suit = 0; suit < PackedHand.SUIT_COUNT; suit++) {
+            if ((suits & (1 << suit)) != 0) {
+                mask |= PackedHand.CLUBS << (suit * PackedHand.RANK_COUNT);
+            }
+        }
+        return mask;
+    }
+
+    /******************************* BITSET HELPERS **********************************************/
+
+    /**
+     * ANDs a block of bits at offset with mask.
+     */
+    private static void and(long[] bits, int offset, long[] mask) {
+        for (int word = 0; word < mask.length; word++) {
+            bits[offset + word] &= mask[word];
+        }
+    }
+
+    private static int nextSetBit(long[] bits, int from, int end) {
+        int word = from >>> 6;
+        if (from >= end) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << from);
+        while (true) {
+            if (current != 0) {
+                int next = word * Long.SIZE + Long.numberOfTrailingZeros(current);
+                return next < end ? next : -1;
+            }
+            if (++word >= (end + Long.SIZE - 1) >>> 6) {
+                return -1;
+            }
+            current = bits[word];
+        }
+    }
+
+    private static void setRange(long[] bits, int from, int to) {
+        Arrays.fill(bits, 0);
+        for (int bit = from; bit <= to; bit++) {
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Clears every bit outside from..to.
+     */
+    private static void keepRange(long[] bits, int from, int to) {
+        for (int word = 0; word < bits.length; word++) {
+            bits[word] &= rangeWord(word, from, to);
+        }
+    }
+
+    /**
+     * Clears every bit in from..to.
+     */
+    private static void clearRange(long[] bits, int from, int to) {
+        for (int word = 0; word < bits.length; word++) {
+            bits[word] &= ~rangeWord(word, from, to);
+        }
+    }
+
+    /**
+     * @return the bits of from..to that fall in the given word
+     */
+    private static long rangeWord(int word, int from, int to) {
+        int low = Math.max(from - word * Long.SIZE, 0);
+        int high = Math.min(to - word * Long.SIZE, Long.SIZE - 1);
+        if (low > high) {
+            return 0;
+        }
+        return (-1L << low) & (-1L >>> (Long.SIZE - 1 - high));
+    }
+}
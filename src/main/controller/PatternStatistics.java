@@ -0,0 +1,148 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.Combinations;
+import main.model.HandIndex;
+import main.model.PackedHand;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * PatternStatistics holds exact numbers for one dealer pattern, found by showing it every possible hand: how many
+ * hands it accepts in full, how many cards it chooses from the hands, and the first few hands it accepts. The hands
+ * are walked by a parallel stream over {@link Combinations}, which splits the walk across the common fork/join
+ * pool, so the 270,725 four card hands take well under a second for all 12 patterns.
+ *
+ * Usage: {@code java main.controller.PatternStatistics [handSize]}
+ */
+public final class PatternStatistics {
+
+    public static final int EXAMPLE_COUNT = 3; // accepted hands kept as examples
+
+    private final long[] chosenSizes; // chosenSizes[n] hands had n cards chosen
+    private final long[] examples = new long[EXAMPLE_COUNT]; // the first accepted hands, lowest first
+    private int exampleCount;
+
+    private PatternStatistics(int handSize) {
+        chosenSizes = new long[handSize + 1];
+    }
+
+    /**
+     * Shows every pattern every hand of the given size.
+     * @param patterns the dealer's patterns, e.g. {@link PatternRules#loadDefault()}
+     * @param handSize the number of cards in a hand, 0 to 52
+     * @return the statistics of each pattern, in the order given
+     */
+    public static PatternStatistics[] enumerate(DealerPattern[] patterns, int handSize) {
+        return Combinations.stream(handSize, true).collect(
+                () -> {
+                    PatternStatistics[] statistics = new PatternStatistics[patterns.length];
+                    for (int p = 0; p < statistics.length; p++) {
+                        statistics[p] = new PatternStatistics(handSize);
+                    }
+                    return statistics;
+                },
+                (statistics, hand) -> {
+                    for (int p = 0; p < statistics.length; p++) {
+                        statistics[p].record(hand, patterns[p].select(hand));
+                    }
+                },
+                (statistics, later) -> {
+                    for (int p = 0; p < statistics.length; p++) {
+                        statistics[p].add(later[p]);
+                    }
+                });
+    }
+
+    private void record(long hand, long chosen) {
+        chosenSizes[Long.bitCount(chosen)]++;
+        if (chosen == hand && exampleCount < EXAMPLE_COUNT) {
+            examples[exampleCount++] = hand;
+        }
+    }
+
+    /**
+     * Adds the statistics of hands walked after these.
+     */
+    private void add(PatternStatistics later) {
+        for (int n = 0; n < chosenSizes.length; n++) {
+            chosenSizes[n] += later.chosenSizes[n];
+        }
+        for (int i = 0; i < later.exampleCount && exampleCount < EXAMPLE_COUNT; i++) {
+            examples[exampleCount++] = later.examples[i];
+        }
+    }
+
+    /**
+     * @return the number of hands shown to the pattern
+     */
+    public long getHands() {
+        long hands = 0;
+        for (long count : chosenSizes) {
+            hands += count;
+        }
+        return hands;
+    }
+
+    /**
+     * @return the number of hands the dealer chooses every card of, the hands that score a point
+     */
+    public long getAccepted() {
+        return chosenSizes[chosenSizes.length - 1];
+    }
+
+    /**
+     * @return the chance that a random hand scores a point
+     */
+    public double getWinProbability() {
+        return (double) getAccepted() / getHands();
+    }
+
+    /**
+     * @param cards a number of cards
+     * @return the number of hands the dealer chooses exactly that many cards from
+     */
+    public long getChosenSize(int cards) {
+        return cards >= 0 && cards < chosenSizes.length ? chosenSizes[cards] : 0;
+    }
+
+    /**
+     * @return up to EXAMPLE_COUNT accepted hands as PackedHands, the lowest first
+     */
+    public long[] getExamples() {
+        return Arrays.copyOf(examples, exampleCount);
+    }
+
+    /**
+     * Prints the statistics of every dealer pattern.
+     * @param args optionally the number of cards in a hand, 4 by default
+     */
+    public static void main(String[] args) {
+        int handSize = args.length > 0 ? Integer.parseInt(args[0]) : GameEngine.HAND_SIZE;
+        DealerPattern[] patterns = PatternRules.loadDefault();
+        long start = System.nanoTime();
+        PatternStatistics[] statistics = enumerate(patterns, handSize);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "%,d hands of %d cards, %d patterns, %.2f s%n",
+                HandIndex.count(handSize), handSize, patterns.length, seconds);
+        for (int p = 0; p < statistics.length; p++) {
+            PatternStatistics pattern = statistics[p];
+            StringBuilder line = new StringBuilder();
+            line.append(String.format(Locale.ROOT, "pattern %2d  accepts %,9d (%7.4f%%)  chosen cards",
+                    p + 1, pattern.getAccepted(), 100 * pattern.getWinProbability()));
+            for (int n = 0; n <= handSize; n++) {
+                line.append(String.format(Locale.ROOT, " %d:%.1f%%", n,
+                        100.0 * pattern.getChosenSize(n) / pattern.getHands()));
+            }
+            for (long example : pattern.getExamples()) {
+                line.append("  [").append(PackedHand.toHand(example).format_hand_for_logger()).append(']');
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+
+import java.util.Arrays;
+
+/**
+ * SubsetSum finds the largest set of cards whose values add up to a target, ties going to the lowest cards. Cards
+ * are worth their rank, a jack 11 up to a king 13, and an ace whatever it is configured to be worth.
+ *
+ * Each call takes whichever of three searches needs the fewest steps for the number of cards n:
+ * <ul>
+ *     <li>Every subset in Gray code order, 2^n steps. Each step adds or removes a single card and the running sum
+ *     is updated instead of added up again. This search does not allocate, and it is the one small hands use.</li>
+ *     <li>Meet in the middle, 2 * 2^(n/2) steps. Each half of the cards is walked the same way into a table of the
+ *     best subset for every sum up to the target, and the two tables are joined.</li>
+ *     <li>A table of the best subset for every sum up to the target, built one card at a time, n * (target + 1)
+ *     steps. This keeps large hands linear in n for the small targets patterns use.</li>
+ * </ul>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class SubsetSum {
+
+    private static final int TABLE_SETUP_STEPS = 64; // what allocating a table costs, in search steps
+
+    private final int target;
+    private final int minSize;
+    private final int[] values = new int[PackedHand.RANK_COUNT]; // value of each rank, by Rank ordinal
+
+    /**
+     * @param target the sum to look for
+     * @param aceValue what an ace is worth
+     * @param minSize the fewest cards a result may have, at least 1
+     */
+    public SubsetSum(int target, int aceValue, int minSize) {
+        if (target < 0 || aceValue < 0) {
+            throw new IllegalArgumentException("Target and ace value must not be negative");
+        }
+        this.target = target;
+        this.minSize = Math.max(1, minSize);
+        values[0] = aceValue;
+        for (int rank = 1; rank < values.length; rank++) {
+            values[rank] = rank + 1;
+        }
+    }
+
+    /**
+     * @param cards the cards to choose from, as a PackedHand
+     * @return the largest subset of the cards adding up to the target, ties going to the lowest cards, or
+     * PackedHand.EMPTY if no subset of at least the minimum size does
+     */
+    public long largest(long cards) {
+        int n = Long.bitCount(cards);
+        int total = PackedHand.rankSum(cards) + (values[0] - 1) * PackedHand.count(cards, PackedHand.ACES);
+        if (total <= target) { // only all the cards can add up to the target
+            return total == target && n >= minSize ? cards : PackedHand.EMPTY;
+        }
+        long searchSteps = 1L << n;
+        // the other two searches also allocate and clear their tables
+        long meetInTheMiddleSteps = (2L << ((n + 1) / 2)) + TABLE_SETUP_STEPS;
+        long tableSteps = (long) n * (target + 1) + TABLE_SETUP_STEPS;
+        if (searchSteps <= meetInTheMiddleSteps && searchSteps <= tableSteps) {
+            return search(cards);
+        } else if (meetInTheMiddleSteps < tableSteps) {
+            return meetInTheMiddle(cards);
+        }
+        return bestByTable(cards);
+    }
+
+    /**
+     * Visits every non-empty subset of the cards in Gray code order, keeping the best one adding up to the target.
+     */
+    private long search(long cards) {
+        int n = Long.bitCount(cards);
+        long subset = 0;
+        int sum = 0;
+        int size = 0;
+        long best = PackedHand.EMPTY;
+        int bestSize = 0;
+        for (long step = 1; step < 1L << n; step++) {
+            long card = nthCard(cards, Long.numberOfTrailingZeros(step));
+            if ((subset & card) == 0) {
+                subset |= card;
+                sum += value(card);
+                size++;
+            } else {
+                subset &= ~card;
+                sum -= value(card);
+                size--;
+            }
+            if (sum == target && size >= minSize && (size > bestSize || (size == bestSize && subset < best))) {
+                best = subset;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the best subset of each half for every sum up to the target, then joins the halves.
+     */
+    private long meetInTheMiddle(long cards) {
+        long low = cards;
+        for (int i = 0; i < Long.bitCount(cards) / 2; i++) {
+            low &= low - 1;
+        }
+        low = cards & ~low; // the lowest half of the cards
+        long high = cards & ~low;
+
+        long[] lowBest = new long[target + 1];
+        int[] lowSizes = new int[target + 1];
+        long[] highBest = new long[target + 1];
+        int[] highSizes = new int[target + 1];
+        bestBySum(low, lowBest, lowSizes);
+        bestBySum(high, highBest, highSizes);
+
+        long best = PackedHand.EMPTY;
+        int bestSize = 0;
+        for (int lowSum = 0; lowSum <= target; lowSum++) {
+            int highSum = target - lowSum;
+            if (lowSizes[lowSum] < 0 || highSizes[highSum] < 0) {
+                continue;
+            }
+            // the high half decides which joined subset is lower, and it is the lowest of its size already
+            long subset = lowBest[lowSum] | highBest[highSum];
+            int size = lowSizes[lowSum] + highSizes[highSum];
+            if (size >= minSize && (size > bestSize || (size == bestSize && subset < best))) {
+                best = subset;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Builds the best subset for every sum one card at a time: with each new card, a sum's best subset either
+     * leaves the card out or is the best subset for the sum minus the card's value plus the card.
+     */
+    private long bestByTable(long cards) {
+        long[] best = new long[target + 1];
+        int[] sizes = new int[target + 1];
+        Arrays.fill(sizes, -1);
+        sizes[0] = 0;
+        for (long rest = cards; rest != 0; rest &= rest - 1) {
+            long card = Long.lowestOneBit(rest);
+            int value = value(card);
+            // downwards, so every sum reads the table from before this card
+            for (int sum = target; sum >= value; sum--) {
+                int size = sizes[sum - value] + 1;
+                if (size == 0) {
+                    continue;
+                }
+                long subset = best[sum - value] | card;
+                if (size > sizes[sum] || (size == sizes[sum] && subset < best[sum])) {
+                    best[sum] = subset;
+                    sizes[sum] = size;
+                }
+            }
+        }
+        return sizes[target] >= minSize ? best[target] : PackedHand.EMPTY;
+    }
+
+    /**
+     * Fills in, for every sum up to the target, the largest and then lowest subset of the cards adding up to it,
+     * and its size, or -1 if none does. The empty subset counts, adding up to 0.
+     */
+    private void bestBySum(long cards, long[] best, int[] sizes) {
+        Arrays.fill(sizes, -1);
+        sizes[0] = 0;
+        int n = Long.bitCount(cards);
+        long subset = 0;
+        int sum = 0;
+        int size = 0;
+        for (long step = 1; step < 1L << n; step++) {
+            long card = nthCard(cards, Long.numberOfTrailingZeros(step));
+            if ((subset & card) == 0) {
+                subset |= card;
+                sum += value(card);
+                size++;
+            } else {
+                subset &= ~card;
+                sum -= value(card);
+                size--;
+            }
+            if (sum <= target && (size > sizes[sum] || (size == sizes[sum] && subset < best[sum]))) {
+                best[sum] = subset;
+                sizes[sum] = size;
+            }
+        }
+    }
+
+    /**
+     * Card n of the Gray code changes once every 2^(n+1) steps, so the O(n) walk here is O(1) per step on average.
+     * @return the nth lowest card, as a single bit
+     */
+    private static long nthCard(long cards, int n) {
+        for (int i = 0; i < n; i++) {
+            cards &= cards - 1;
+        }
+        return Long.lowestOneBit(cards);
+    }
+
+    private int value(long card) {
+        return values[Long.numberOfTrailingZeros(card) % PackedHand.RANK_COUNT];
+    }
+}
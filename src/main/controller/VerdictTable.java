@@ -0,0 +1,242 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.HandIndex;
+import main.model.PackedHand;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * VerdictTable holds the dealer's choice for every pattern and every possible four card hand. There are only
+ * C(52,4) = 270,725 four card hands, and a verdict is a 4 bit mask of which cards the dealer picks, so the whole
+ * table for 12 patterns is about 1.6MB. The table is generated from the rules in play with
+ * {@link #generate(Path, String)} and read back with {@link #load(Path, String)}, which memory maps the file so
+ * every JVM on a host shares the same page cache copy. The header records a hash of the rules the table was
+ * generated from, and a table is only loaded for the same rules, so it can't silently disagree with the patterns.
+ *
+ * File layout: a 24 byte header (magic, version, hand size, pattern count, rules hash) followed by one block per
+ * pattern. Each block packs two verdicts per byte, the low nibble holding the hand with the even index. Hands are
+ * indexed by {@link HandIndex}, and bit i of a verdict is the i-th lowest card of the hand.
+ */
+public final class VerdictTable {
+
+    public static final String DEFAULT_FILE = "PatternVerdicts.bin"; // file name used by main()
+
+    static final int MAGIC = 0x41445654; // "ADVT"
+    static final int VERSION = 2;
+    static final int HAND_SIZE = 4;
+    static final int HEADER_BYTES = 24;
+    static final int HAND_COUNT = (int) HandIndex.count(HAND_SIZE); // 270,725
+    static final int BLOCK_BYTES = (HAND_COUNT + 1) / 2;
+
+    private final ByteBuffer table; // verdict blocks, without the header
+    private final int patternCount;
+
+    private VerdictTable(ByteBuffer table, int patternCount) {
+        this.table = table;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Memory maps a table written by {@link #generate(Path, String)}.
+     * @param file the table file
+     * @param rules the text of the rules in play, e.g. {@link PatternRules#readDefault()}
+     * @return the loaded table
+     * @throws IOException if the file cannot be read, is not a verdict table, or was generated from other rules
+     */
+    public static VerdictTable load(Path file, String rules) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Verdict table " + file + " has no header");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getInt(8) != HAND_SIZE) {
+                throw new IOException("Verdict table " + file + " has an unknown header");
+            }
+            int patternCount = mapped.getInt(12);
+            long expected = HEADER_BYTES + (long) BLOCK_BYTES * patternCount;
+            if (patternCount < 1 || size != expected) {
+                throw new IOException("Verdict table " + file + " has " + size + " bytes, expected " + expected);
+            }
+            if (mapped.getLong(16) != rulesHash(rules)) {
+                throw new IOException("Verdict table " + file + " was generated from other rules, generate it again");
+            }
+            return new VerdictTable(mapped.position(HEADER_BYTES).slice(), patternCount);
+        }
+    }
+
+    /**
+     * Evaluates every pattern against every four card hand and writes the table to disk.
+     * @param file the table file to create or overwrite
+     * @param rules the text of the rules to compile, as read by {@link PatternRules#load(String)}
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the rules are not valid
+     */
+    public static void generate(Path file, String rules) throws IOException {
+        DealerPattern[] patterns = PatternRules.load(rules);
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(HAND_SIZE);
+            out.writeInt(patterns.length);
+            out.writeLong(rulesHash(rules));
+            for (DealerPattern pattern : patterns) {
+                out.write(buildBlock(pattern));
+            }
+        }
+    }
+
+    /**
+     * @param rules the text of some rules
+     * @return the first 8 bytes of the SHA-256 of the text
+     */
+    static long rulesHash(String rules) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rules.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is missing", e); // every JVM has it
+        }
+    }
+
+    /**
+     * @param pattern a dealer pattern
+     * @return the packed verdicts of the pattern for every hand, in index order
+     */
+    private static byte[] buildBlock(DealerPattern pattern) {
+        byte[] block = new byte[BLOCK_BYTES];
+        int index = 0;
+        // walking the cards highest first visits the hands in HandIndex order
+        for (int c3 = 3; c3 < PackedHand.CARD_COUNT; c3++) {
+            for (int c2 = 2; c2 < c3; c2++) {
+                for (int c1 = 1; c1 < c2; c1++) {
+                    for (int c0 = 0; c0 < c1; c0++) {
+                        long hand = 1L << c0 | 1L << c1 | 1L << c2 | 1L << c3;
+                        int verdict = toVerdict(hand, pattern.select(hand));
+                        block[index >>> 1] |= (byte) (verdict << ((index & 1) << 2));
+                        index++;
+                    }
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * @return the number of patterns in the table
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * @param pattern a dealer pattern, 1 to getPatternCount()
+     * @param handIndex the combinatorial index of a four card hand
+     * @return the 4 bit verdict, bit i set if the dealer picks the i-th lowest card
+     */
+    public int verdict(int pattern, int handIndex) {
+        int position = (pattern - 1) * BLOCK_BYTES + (handIndex >>> 1);
+        return (table.get(position) >>> ((handIndex & 1) << 2)) & 0xF;
+    }
+
+    /**
+     * Looks up the dealer's choice, the table counterpart of the pattern's {@link DealerPattern#select(long)}.
+     * @param pattern a dealer pattern, 1 to getPatternCount()
+     * @param hand a packed four card hand
+     * @return the packed set of cards the dealer picks
+     */
+    public long select(int pattern, long hand) {
+        return fromVerdict(hand, verdict(pattern, indexOf(hand)));
+    }
+
+    /**
+     * @param pattern a dealer pattern, 1 to getPatternCount()
+     * @param fallback the same pattern compiled from the rules, for hands that are not four cards
+     * @return the pattern, looked up in the table for four card hands
+     */
+    public DealerPattern pattern(int pattern, DealerPattern fallback) {
+        if (pattern < 1 || pattern > patternCount) {
+            throw new IllegalArgumentException("No pattern " + pattern + " in a table of " + patternCount);
+        }
+        return hand -> PackedHand.size(hand) == HAND_SIZE ? select(pattern, hand) : fallback.select(hand);
+    }
+
+    /**
+     * @param hand a packed four card hand
+     * @return the combinatorial index of the hand, 0 to 270,724
+     */
+    public static int indexOf(long hand) {
+        return (int) HandIndex.rank(hand);
+    }
+
+    /**
+     * @param hand a packed hand
+     * @param selected the packed cards picked from the hand
+     * @return the selection as a mask over the positions of the hand's cards
+     */
+    static int toVerdict(long hand, long selected) {
+        int verdict = 0;
+        int position = 0;
+        for (long rest = hand; rest != 0; rest &= rest - 1) {
+            if ((selected & Long.lowestOneBit(rest)) != 0) {
+                verdict |= 1 << position;
+            }
+            position++;
+        }
+        return verdict;
+    }
+
+    /**
+     * @param hand a packed hand
+     * @param verdict a mask over the positions of the hand's cards
+     * @return the packed cards the verdict picks from the hand
+     */
+    static long fromVerdict(long hand, int verdict) {
+        long selected = PackedHand.EMPTY;
+        for (long rest = hand; verdict != 0; rest &= rest - 1, verdict >>>= 1) {
+            if ((verdict & 1) != 0) {
+                selected |= Long.lowestOneBit(rest);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Generates the verdict table.
+     * @param args optionally "--rules file" for other rules than the game's, then the file to write,
+     * PatternVerdicts.bin by default
+     */
+    public static void main(String[] args) throws IOException {
+        String rules = null;
+        String output = DEFAULT_FILE;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rules") && i + 1 < args.length) {
+                rules = Files.readString(Paths.get(args[++i]), StandardCharsets.UTF_8);
+            } else {
+                output = args[i];
+            }
+        }
+        Path file = Paths.get(output);
+        generate(file, rules != null ? rules : PatternRules.readDefault());
+        System.out.println("Wrote " + Files.size(file) + " bytes to " + file);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * AsyncAppender writes lines to a Writer from a background thread. Callers only copy a reference into a bounded
+ * ring buffer, so logging never waits on the disk. The writer thread takes everything in the buffer as one batch,
+ * writes it, and flushes (group commits) once the {@link FlushPolicy} says enough time, records, or bytes have
+ * built up. When the buffer is full the {@link OverflowPolicy} decides whether callers wait or the line is
+ * dropped. Closing the appender writes out every line already accepted before closing the Writer.
+ */
+public class AsyncAppender implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncAppender.class.getName());
+
+    /**
+     * What append does when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        BLOCK, // wait for the writer thread to make room (backpressure)
+        DROP // drop the new line, append returns false
+    }
+
+    /**
+     * When the writer thread flushes: whichever threshold is reached first since the last flush.
+     */
+    public static class FlushPolicy {
+        public static final FlushPolicy DEFAULT = new FlushPolicy(200, 256, 64 * 1024);
+
+        private final long maxDelayNanos;
+        private final int maxRecords;
+        private final long maxBytes;
+
+        /**
+         * @param maxDelayMillis the longest a written line may wait before it is flushed
+         * @param maxRecords the most lines written between flushes
+         * @param maxBytes the most characters written between flushes
+         */
+        public FlushPolicy(long maxDelayMillis, int maxRecords, long maxBytes) {
+            this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+            this.maxRecords = maxRecords;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    private final Writer out;
+    private final FlushPolicy flushPolicy;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread writerThread;
+
+    // the ring buffer and its bookkeeping, guarded by lock
+    private final String[] ring;
+    private final int mask;
+    private int head; // index of the oldest line not yet taken by the writer thread
+    private int count; // lines in the ring
+    private boolean closed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // owned by the writer thread
+    private int unflushedRecords;
+    private long unflushedBytes;
+    private long firstUnflushedNanos;
+
+    /**
+     * Starts the writer thread.
+     * @param out where the lines are written, one per line
+     * @param capacity the number of lines the ring buffer holds, rounded up to a power of two
+     * @param flushPolicy when the writer thread flushes
+     * @param overflowPolicy what happens when the buffer is full
+     * @param threadName the name of the writer thread
+     */
+    public AsyncAppender(Writer out, int capacity, FlushPolicy flushPolicy, OverflowPolicy overflowPolicy,
+                         String threadName) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.out = out;
+        this.flushPolicy = flushPolicy;
+        this.overflowPolicy = overflowPolicy;
+        this.ring = new String[size];
+        this.mask = size - 1;
+        this.writerThread = new Thread(this::writeLoop, threadName);
+        this.writerThread.setDaemon(true); // close() drains, the daemon flag only stops it holding up exit
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a line for writing.
+     * @param line the line, without a line separator
+     * @return true if the line was queued, false if it was dropped or the appender is closed
+     */
+    public boolean append(String line) {
+        lock.lock();
+        try {
+            while (count == ring.length && !closed) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    return false;
+                }
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return false;
+            }
+            ring[(head + count) & mask] = line;
+            count++;
+            if (count == 1) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting lines, writes out every line already queued, and closes the Writer.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() != writerThread) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The writer thread: takes batches from the ring, writes them, and flushes as the policy says.
+     */
+    private void writeLoop() {
+        String[] batch = new String[ring.length];
+        boolean running = true;
+        while (running) {
+            int size;
+            boolean flushNow;
+            lock.lock();
+            try {
+                while (count == 0 && !closed) {
+                    if (unflushedRecords == 0) {
+                        notEmpty.awaitUninterruptibly();
+                        continue;
+                    }
+                    long wait = flushPolicy.maxDelayNanos - (System.nanoTime() - firstUnflushedNanos);
+                    if (wait <= 0) {
+                        break;
+                    }
+                    try {
+                        notEmpty.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        // only close() stops the writer thread
+                    }
+                }
+                size = count;
+                for (int i = 0; i < size; i++) {
+                    batch[i] = ring[(head + i) & mask];
+                    ring[(head + i) & mask] = null;
+                }
+                head = (head + size) & mask;
+                count = 0;
+                notFull.signalAll();
+                running = !closed;
+                flushNow = closed;
+            } finally {
+                lock.unlock();
+            }
+
+            write(batch, size);
+            if (flushNow || unflushedRecords >= flushPolicy.maxRecords || unflushedBytes >= flushPolicy.maxBytes
+                    || (unflushedRecords > 0
+                    && System.nanoTime() - firstUnflushedNanos >= flushPolicy.maxDelayNanos)) {
+                flushWriter();
+            }
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error closing file", e);
+        }
+    }
+
+    /**
+     * Writes a batch of lines without flushing.
+     */
+    private void write(String[] batch, int size) {
+        for (int i = 0; i < size; i++) {
+            try {
+                out.write(batch[i]);
+                out.write(System.lineSeparator());
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error writing to file", e);
+            }
+            if (unflushedRecords == 0) {
+                firstUnflushedNanos = System.nanoTime();
+            }
+            unflushedRecords++;
+            unflushedBytes += batch[i].length() + 1;
+            batch[i] = null;
+        }
+    }
+
+    /**
+     * Flushes the Writer.
+     */
+    private void flushWriter() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error flushing file", e);
+        }
+        unflushedRecords = 0;
+        unflushedBytes = 0;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import main.model.PackedHand;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * BinaryHistoryReader streams the records of a history written by BinaryHistoryWriter to a HistoryVisitor.
+ * The card ordinals of each hand are passed in one reused array, so reading does not allocate per hand.
+ */
+public final class BinaryHistoryReader {
+
+    /**
+     * The last session day and won pattern of a history, which appended records continue their deltas from.
+     */
+    static final class LastValues {
+        long day;
+        int pattern;
+    }
+
+    private BinaryHistoryReader() {
+    }
+
+    /**
+     * Reads a whole history.
+     * @param in the history, starting at its header
+     * @param visitor receives every record
+     * @throws IOException if the history cannot be read or is not in the binary history format
+     */
+    public static void read(InputStream in, HistoryVisitor visitor) throws IOException {
+        InputStream input = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        byte[] magic = input.readNBytes(BinaryHistoryWriter.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryHistoryWriter.MAGIC)) {
+            throw new IOException("Not a binary hand history");
+        }
+        int[] ordinals = new int[PackedHand.CARD_COUNT];
+        long day = 0;
+        int pattern = 0;
+        int tag;
+        while ((tag = input.read()) != -1) {
+            switch (tag & 0xF0) {
+                case BinaryHistoryWriter.TAG_HAND_4 -> {
+                    readOrdinals(input, ordinals, 4);
+                    visitor.hand(ordinals, 4, tag & 0x0F);
+                }
+                case BinaryHistoryWriter.TAG_HAND -> {
+                    long size = readVarint(input); // a varint of 10 bytes can be negative
+                    if (size < 0 || size > ordinals.length) {
+                        throw new IOException("Hand of " + size + " cards in binary hand history");
+                    }
+                    readOrdinals(input, ordinals, (int) size);
+                    visitor.hand(ordinals, (int) size, readVarint(input));
+                }
+                case BinaryHistoryWriter.TAG_ROUND_WON -> {
+                    pattern += (int) unzigzag(readVarint(input));
+                    visitor.roundWon(pattern);
+                }
+                case BinaryHistoryWriter.TAG_SESSION -> {
+                    day += unzigzag(readVarint(input));
+                    visitor.sessionStarted(LocalDate.ofEpochDay(day));
+                }
+                case BinaryHistoryWriter.TAG_TEXT -> {
+                    long length = readVarint(input);
+                    if (length < 0 || length > Integer.MAX_VALUE) {
+                        throw new IOException("Text record of " + length + " bytes in binary hand history");
+                    }
+                    byte[] bytes = input.readNBytes((int) length);
+                    if (bytes.length != length) {
+                        throw new EOFException("Truncated text record in binary hand history");
+                    }
+                    visitor.text(new String(bytes, StandardCharsets.UTF_8));
+                }
+                default -> throw new IOException("Unknown record tag " + tag + " in binary hand history");
+            }
+        }
+    }
+
+    /**
+     * @return the last session day and won pattern in the history
+     */
+    static LastValues lastValues(InputStream in) throws IOException {
+        LastValues last = new LastValues();
+        read(in, new HistoryVisitor() {
+            @Override
+            public void sessionStarted(LocalDate date) {
+                last.day = date.toEpochDay();
+            }
+
+            @Override
+            public void hand(int[] ordinals, int size, long chosenPositions) {
+            }
+
+            @Override
+            public void roundWon(int pattern) {
+                last.pattern = pattern;
+            }
+
+            @Override
+            public void text(String line) {
+            }
+        });
+        return last;
+    }
+
+    private static void readOrdinals(InputStream in, int[] ordinals, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            int ordinal = in.read();
+            if (ordinal < 0) {
+                throw new EOFException("Truncated hand in binary hand history");
+            }
+            if (ordinal >= PackedHand.CARD_COUNT) {
+                throw new IOException("Card ordinal " + ordinal + " in binary hand history");
+            }
+            ordinals[i] = ordinal;
+        }
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated varint in binary hand history");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in binary hand history");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
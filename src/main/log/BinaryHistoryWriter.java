@@ -0,0 +1,163 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * BinaryHistoryWriter appends hand history records in the compact binary format read by BinaryHistoryReader.
+ * A four card hand takes 5 bytes: a tag byte whose low nibble is the dealer's selection, then the 4 card ordinals
+ * in pick order. Session dates (as epoch days) and won patterns are stored as zigzag varint deltas from the
+ * previous one, so they usually take 2 bytes. This is about a third of the size of the CardsDealt.txt text.
+ *
+ * File layout: the 4 magic bytes "ADH1", then records, each starting with a tag byte:
+ * <ul>
+ *     <li>0x00-0x0F: four card hand, low nibble = selection, followed by 4 ordinal bytes</li>
+ *     <li>0x10: hand of any other size, followed by a varint size, the ordinal bytes, and a varint selection</li>
+ *     <li>0x20: round won, followed by the zigzag varint delta of the pattern</li>
+ *     <li>0x30: session started, followed by the zigzag varint delta of the epoch day</li>
+ *     <li>0x40: any other line, followed by a varint byte length and the UTF-8 text</li>
+ * </ul>
+ */
+public class BinaryHistoryWriter implements HistoryVisitor, Closeable {
+
+    static final byte[] MAGIC = {'A', 'D', 'H', '1'};
+
+    static final int TAG_HAND_4 = 0x00;
+    static final int TAG_HAND = 0x10;
+    static final int TAG_ROUND_WON = 0x20;
+    static final int TAG_SESSION = 0x30;
+    static final int TAG_TEXT = 0x40;
+
+    private final OutputStream out;
+    private long previousDay; // the epoch day of the last session record
+    private int previousPattern; // the pattern of the last round won record
+
+    /**
+     * Starts a new history, writing the file header.
+     * @param out where the history is written
+     * @throws IOException if the header cannot be written
+     */
+    public BinaryHistoryWriter(OutputStream out) throws IOException {
+        this(out, 0, 0);
+        out.write(MAGIC);
+    }
+
+    private BinaryHistoryWriter(OutputStream out, long previousDay, int previousPattern) {
+        this.out = out;
+        this.previousDay = previousDay;
+        this.previousPattern = previousPattern;
+    }
+
+    /**
+     * Opens a history file for appending, creating it if needed. The header is only written to a new file, and the
+     * deltas of the new records continue from the last records already in the file, which is read once to find them.
+     * @param file the history file
+     * @return a writer appending to the file
+     * @throws IOException if the file cannot be read or opened, or is not a binary history
+     */
+    public static BinaryHistoryWriter append(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return new BinaryHistoryWriter(new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+        BinaryHistoryReader.LastValues last;
+        try (InputStream in = Files.newInputStream(file)) {
+            last = BinaryHistoryReader.lastValues(in);
+        }
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND));
+        return new BinaryHistoryWriter(out, last.day, last.pattern);
+    }
+
+    @Override
+    public void sessionStarted(LocalDate date) {
+        long day = date.toEpochDay();
+        write(TAG_SESSION);
+        writeVarint(zigzag(day - previousDay));
+        previousDay = day;
+    }
+
+    @Override
+    public void hand(int[] ordinals, int size, long chosenPositions) {
+        if (size == 4) {
+            write(TAG_HAND_4 | (int) chosenPositions);
+        } else {
+            write(TAG_HAND);
+            writeVarint(size);
+        }
+        for (int i = 0; i < size; i++) {
+            write(ordinals[i]);
+        }
+        if (size != 4) {
+            writeVarint(chosenPositions);
+        }
+    }
+
+    @Override
+    public void roundWon(int pattern) {
+        write(TAG_ROUND_WON);
+        writeVarint(zigzag(pattern - previousPattern));
+        previousPattern = pattern;
+    }
+
+    @Override
+    public void text(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        write(TAG_TEXT);
+        writeVarint(bytes.length);
+        try {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws IOException if the buffered records cannot be written
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void write(int b) {
+        try {
+            out.write(b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes 7 bits per byte, low bits first, with the high bit set on every byte but the last.
+     */
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    /**
+     * Maps signed deltas to unsigned ones so small negative numbers stay small: 0, -1, 1, -2 become 0, 1, 2, 3.
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
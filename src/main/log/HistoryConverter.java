@@ -0,0 +1,81 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import main.model.PackedHand;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * HistoryConverter converts the hand history between the CardsDealt.txt text and the binary format, in either
+ * direction. Converting text to binary and back gives the same lines.
+ *
+ * Usage: {@code java main.log.HistoryConverter to-binary CardsDealt.txt CardsDealt.bin}
+ * or {@code java main.log.HistoryConverter to-text CardsDealt.bin CardsDealt.txt}
+ */
+public final class HistoryConverter {
+
+    private HistoryConverter() {
+    }
+
+    /**
+     * Converts text history to binary.
+     * @param in the text history
+     * @param out receives the binary history, including its header
+     * @throws IOException if the text cannot be read or the binary history cannot be written
+     */
+    public static void textToBinary(BufferedReader in, OutputStream out) throws IOException {
+        BinaryHistoryWriter writer = new BinaryHistoryWriter(out);
+        int[] ordinals = new int[PackedHand.CARD_COUNT];
+        String line;
+        while ((line = in.readLine()) != null) {
+            HistoryText.parseLine(line, writer, ordinals);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Converts binary history to text.
+     * @param in the binary history
+     * @param out receives the text history
+     * @throws IOException if the binary history cannot be read or is malformed
+     */
+    public static void binaryToText(InputStream in, Appendable out) throws IOException {
+        BinaryHistoryReader.read(in, HistoryText.writer(out));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-text"))) {
+            System.err.println("Usage: HistoryConverter to-binary|to-text <input> <output>");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        if (args[0].equals("to-binary")) {
+            try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+                textToBinary(in, out);
+            }
+        } else {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(input));
+                 Writer out = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+                binaryToText(in, out);
+            }
+        }
+        System.out.println(args[1] + " (" + Files.size(input) + " bytes) -> " + args[2]
+                + " (" + Files.size(output) + " bytes)");
+    }
+}
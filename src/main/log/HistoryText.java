@@ -0,0 +1,282 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import main.model.Card;
+import main.model.CardRegistry;
+import main.model.PackedHand;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * HistoryText reads and writes the lines of CardsDealt.txt: a date line for every session, a hand line such as
+ * "*2H*,5C,JD,*AS*" for every hand (stars mark the dealer's choices), and "USER WON PATTERN n" for every round won.
+ */
+public final class HistoryText {
+
+    // strict, so only dates that print back exactly as they were read are treated as dates
+    public static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MM/dd/uuuu").withResolverStyle(ResolverStyle.STRICT);
+    public static final String ROUND_WON_PREFIX = "USER WON PATTERN ";
+
+    private HistoryText() {
+    }
+
+    /**
+     * Parses one line and passes it to the visitor as the record it represents.
+     * @param line a line of CardsDealt.txt, without its line separator
+     * @param visitor receives the record
+     * @param ordinals scratch space for the hand's card ordinals, at least 52 long
+     */
+    public static void parseLine(CharSequence line, HistoryVisitor visitor, int[] ordinals) {
+        int length = line.length();
+        if (startsWith(line, ROUND_WON_PREFIX)) {
+            int pattern = parseInt(line, ROUND_WON_PREFIX.length(), length);
+            if (pattern >= 0) {
+                visitor.roundWon(pattern);
+                return;
+            }
+        } else if (length == 10 && line.charAt(2) == '/' && line.charAt(5) == '/') {
+            try {
+                visitor.sessionStarted(LocalDate.parse(line, DATE_FORMAT));
+                return;
+            } catch (DateTimeParseException e) {
+                // not a date, kept as text below
+            }
+        } else if (parseHand(line, visitor, ordinals)) {
+            return;
+        }
+        visitor.text(line.toString());
+    }
+
+    /**
+     * The byte array counterpart of {@link #parseLine(CharSequence, HistoryVisitor, int[])}, for lines read straight
+     * from a file. Only lines that are none of the known records become Strings.
+     * @param bytes bytes holding the line, in ASCII or UTF-8
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line, without its line separator
+     * @param visitor receives the record
+     * @param ordinals scratch space for the hand's card ordinals, at least 52 long
+     */
+    public static void parseLine(byte[] bytes, int start, int end, HistoryVisitor visitor, int[] ordinals) {
+        int length = end - start;
+        if (startsWith(bytes, start, end, ROUND_WON_PREFIX)) {
+            int pattern = parseInt(bytes, start + ROUND_WON_PREFIX.length(), end);
+            if (pattern >= 0) {
+                visitor.roundWon(pattern);
+                return;
+            }
+        } else if (length == 10 && bytes[start + 2] == '/' && bytes[start + 5] == '/') {
+            LocalDate date = parseDate(bytes, start);
+            if (date != null) {
+                visitor.sessionStarted(date);
+                return;
+            }
+        } else if (parseHand(bytes, start, end, visitor, ordinals)) {
+            return;
+        }
+        visitor.text(new String(bytes, start, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return a visitor that writes every record it receives to out as a line of CardsDealt.txt
+     */
+    public static HistoryVisitor writer(Appendable out) {
+        return new HistoryVisitor() {
+            @Override
+            public void sessionStarted(LocalDate date) {
+                line(DATE_FORMAT.format(date));
+            }
+
+            @Override
+            public void hand(int[] ordinals, int size, long chosenPositions) {
+                try {
+                    for (int i = 0; i < size; i++) {
+                        if (i > 0) {
+                            out.append(',');
+                        }
+                        out.append(Card.of(ordinals[i]).format_card_for_logger((chosenPositions & (1L << i)) != 0));
+                    }
+                    out.append(System.lineSeparator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void roundWon(int pattern) {
+                line(ROUND_WON_PREFIX + pattern);
+            }
+
+            @Override
+            public void text(String line) {
+                line(line);
+            }
+
+            private void line(String line) {
+                try {
+                    out.append(line).append(System.lineSeparator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return whether the line was a hand, in which case it was passed to the visitor
+     */
+    private static boolean parseHand(CharSequence line, HistoryVisitor visitor, int[] ordinals) {
+        int size = 0;
+        long chosen = 0;
+        int start = 0;
+        int length = line.length();
+        if (length == 0 || line.charAt(length - 1) == ',') {
+            return false;
+        }
+        while (start < length) {
+            int end = start;
+            while (end < length && line.charAt(end) != ',') {
+                end++;
+            }
+            int token = CardRegistry.parseToken(line, start, end);
+            if (token < 0 || size == PackedHand.CARD_COUNT) {
+                return false;
+            }
+            if ((token & CardRegistry.CHOSEN) != 0) {
+                chosen |= 1L << size;
+            }
+            ordinals[size++] = token & ~CardRegistry.CHOSEN;
+            start = end + 1;
+        }
+        if (size == 0) {
+            return false;
+        }
+        visitor.hand(ordinals, size, chosen);
+        return true;
+    }
+
+    /**
+     * @return whether the line was a hand, in which case it was passed to the visitor
+     */
+    private static boolean parseHand(byte[] bytes, int start, int end, HistoryVisitor visitor, int[] ordinals) {
+        int size = 0;
+        long chosen = 0;
+        if (start == end || bytes[end - 1] == ',') {
+            return false;
+        }
+        while (start < end) {
+            int comma = start;
+            while (comma < end && bytes[comma] != ',') {
+                comma++;
+            }
+            int token = CardRegistry.parseToken(bytes, start, comma);
+            if (token < 0 || size == PackedHand.CARD_COUNT) {
+                return false;
+            }
+            if ((token & CardRegistry.CHOSEN) != 0) {
+                chosen |= 1L << size;
+            }
+            ordinals[size++] = token & ~CardRegistry.CHOSEN;
+            start = comma + 1;
+        }
+        visitor.hand(ordinals, size, chosen);
+        return true;
+    }
+
+    /**
+     * @return the MM/dd/uuuu date at start, or null if it is not a valid one, the same dates DATE_FORMAT reads
+     */
+    private static LocalDate parseDate(byte[] bytes, int start) {
+        int month = parseDigits(bytes, start, start + 2);
+        int day = parseDigits(bytes, start + 3, start + 5);
+        int year = parseDigits(bytes, start + 6, start + 10);
+        if (month < 0 || day < 0 || year < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the non-negative number in the slice, or -1 if it is not one written the way Integer.toString would
+     */
+    private static int parseInt(byte[] bytes, int start, int end) {
+        if (end - start > 1 && bytes[start] == '0') {
+            return -1;
+        }
+        return parseDigits(bytes, start, end);
+    }
+
+    /**
+     * @return the non-negative number in the slice, or -1 if it is not all digits
+     */
+    private static int parseDigits(byte[] bytes, int start, int end) {
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean startsWith(CharSequence line, String prefix) {
+        if (line.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the non-negative number in the slice, or -1 if it is not one written the way Integer.toString would
+     */
+    private static int parseInt(CharSequence text, int start, int end) {
+        if (start == end || end - start > 9 || (end - start > 1 && text.charAt(start) == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
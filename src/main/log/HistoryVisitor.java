@@ -0,0 +1,41 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import java.time.LocalDate;
+
+/**
+ * HistoryVisitor receives the records of a hand history, in the order they were logged. It is implemented by
+ * anything that reads a history, e.g. the converter that turns the binary history back into CardsDealt.txt text.
+ */
+public interface HistoryVisitor {
+
+    /**
+     * A new game session was started, the date line of CardsDealt.txt.
+     * @param date the date the session was started
+     */
+    void sessionStarted(LocalDate date);
+
+    /**
+     * A hand was played.
+     * @param ordinals the card ordinals in the order the user picked them, only the first size entries are valid
+     *                 and the array may be reused for the next hand
+     * @param size the number of cards in the hand
+     * @param chosenPositions bit i is set if the dealer chose the i-th card
+     */
+    void hand(int[] ordinals, int size, long chosenPositions);
+
+    /**
+     * The user won a round, the USER WON PATTERN line of CardsDealt.txt.
+     * @param pattern the pattern that was won
+     */
+    void roundWon(int pattern);
+
+    /**
+     * A line that is none of the above, kept as is.
+     * @param line the line
+     */
+    void text(String line);
+}
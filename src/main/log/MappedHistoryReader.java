@@ -0,0 +1,83 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import main.model.PackedHand;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedHistoryReader streams the records of a CardsDealt.txt to a HistoryVisitor in one pass. The file is memory
+ * mapped a window at a time, so files larger than the heap, or than the 2GB one mapping can hold, are read without
+ * being loaded. Each line is copied into a reused buffer and parsed from the bytes by
+ * {@link HistoryText#parseLine(byte[], int, int, HistoryVisitor, int[])}, so hand, date and round won lines do not
+ * allocate Strings.
+ */
+public final class MappedHistoryReader {
+
+    static final int WINDOW_BYTES = 1 << 28; // bytes mapped at a time
+    private static final int LINE_BYTES = 1 << 12; // initial size of the line buffer
+
+    private MappedHistoryReader() {
+    }
+
+    /**
+     * Reads a whole history.
+     * @param file a CardsDealt.txt
+     * @param visitor receives every record
+     * @throws IOException if the file cannot be read or has a line longer than a window
+     */
+    public static void read(Path file, HistoryVisitor visitor) throws IOException {
+        byte[] line = new byte[LINE_BYTES];
+        int[] ordinals = new int[PackedHand.CARD_COUNT];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int end = last ? length : lastLineBreak(window, length) + 1;
+                if (end == 0) {
+                    throw new IOException("Line longer than " + WINDOW_BYTES + " bytes at " + position + " in " + file);
+                }
+                int start = 0;
+                while (start < end) {
+                    int lineEnd = start;
+                    while (lineEnd < end && window.get(lineEnd) != '\n') {
+                        lineEnd++;
+                    }
+                    int lineLength = lineEnd - start;
+                    if (lineLength > line.length) {
+                        line = new byte[Math.max(lineLength, 2 * line.length)];
+                    }
+                    window.get(start, line, 0, lineLength);
+                    if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    HistoryText.parseLine(line, 0, lineLength, visitor, ordinals);
+                    start = lineEnd + 1;
+                }
+                position += end;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the last line break in the window, or -1 if there is none
+     */
+    private static int lastLineBreak(MappedByteBuffer window, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
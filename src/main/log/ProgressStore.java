@@ -0,0 +1,289 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import main.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ProgressStore keeps the last round won by each player profile. Reads come from memory. Changes are written
+ * behind on a background thread, and several changes made before the thread gets to them are written together.
+ * Every write goes to a temporary file that is forced to disk and then renamed over the save file, so a crash
+ * leaves either the old save or the new one, never a partial one. A write that fails is retried with a growing
+ * delay, and a change only counts as saved once a write holding it has succeeded.
+ *
+ * The save file holds one "profile=last round won" line per profile. A file holding just a number, as older
+ * versions wrote, is read as the default profile.
+ */
+public class ProgressStore implements AutoCloseable {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final String HEADER = "# Art Dealer progress: profile=last round won";
+
+    private static final Logger LOGGER = Logger.getLogger(ProgressStore.class.getName());
+
+    private static final long FIRST_RETRY_MILLIS = 50; // delay before retrying a failed write, doubled each time
+    private static final long MAX_RETRY_MILLIS = 30_000;
+    private static final int FLUSH_ATTEMPTS = 5; // failed writes flush() waits through before giving up
+
+    private final Path file;
+    private final Path tempFile;
+    private final ScheduledExecutorService writer;
+    private final Thread shutdownHook;
+
+    // guarded by this
+    private final Map<String, Integer> lastRoundWon = new HashMap<>();
+    private long version; // changes made since the store opened
+    private long writtenVersion; // changes written to the save file
+    private long failedWrites; // writes that failed since the store opened
+    private boolean writeScheduled;
+    private boolean closed;
+
+    private long retryMillis = FIRST_RETRY_MILLIS; // owned by the writer thread
+
+    private ProgressStore(Path file) {
+        this.file = file.toAbsolutePath();
+        this.tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        this.writer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "progress-store-writer");
+            thread.setDaemon(true); // close() and the shutdown hook wait for pending writes
+            return thread;
+        });
+        this.shutdownHook = new Thread(this::flush, "progress-store-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Loads the save file, or starts with no progress if there is none.
+     * @param file the save file
+     * @return the store
+     */
+    public static ProgressStore open(Path file) {
+        ProgressStore store = new ProgressStore(file);
+        store.load();
+        return store;
+    }
+
+    /**
+     * @param profile a player profile
+     * @return the last round the player won, or 0 if they have not won one
+     */
+    public synchronized int getLastRoundWon(String profile) {
+        return lastRoundWon.getOrDefault(profile, 0);
+    }
+
+    /**
+     * Records the last round a player won. Returns straight away, the save file is written in the background.
+     * @param profile a player profile, without '=' or line breaks
+     * @param round the last round the player won, 0 to start them over
+     */
+    public synchronized void setLastRoundWon(String profile, int round) {
+        checkProfile(profile);
+        if (closed) {
+            throw new IllegalStateException("Progress store is closed");
+        }
+        Integer previous = lastRoundWon.put(profile, round);
+        if (previous != null && previous == round) {
+            return;
+        }
+        version++;
+        if (!writeScheduled) {
+            writeScheduled = true;
+            writer.execute(this::write);
+        }
+    }
+
+    /**
+     * @return the profiles that have progress saved, in name order
+     */
+    public synchronized Set<String> getProfiles() {
+        return Collections.unmodifiableSet(new TreeSet<>(lastRoundWon.keySet()));
+    }
+
+    /**
+     * Waits until every change made before this call has been written, or until the writes have failed
+     * FLUSH_ATTEMPTS times while waiting. Failed writes are still retried in the background after that.
+     * @return whether every change made before this call is saved
+     */
+    public synchronized boolean flush() {
+        long target = version;
+        long giveUpAt = failedWrites + FLUSH_ATTEMPTS;
+        boolean interrupted = false;
+        while (writtenVersion < target && failedWrites < giveUpAt) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (writtenVersion < target) {
+            LOGGER.log(Level.SEVERE, "Progress could not be saved after {0} attempts", FLUSH_ATTEMPTS);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes any pending changes and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (flush()) {
+            writer.shutdown();
+        } else {
+            writer.shutdownNow(); // stop retrying, the failure has been logged
+        }
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down, the hook finds nothing left to write
+        }
+    }
+
+    /**
+     * The writer thread: saves a snapshot of every change made so far, or schedules a retry if that fails.
+     */
+    private void write() {
+        Map<String, Integer> snapshot;
+        long snapshotVersion;
+        synchronized (this) {
+            writeScheduled = false;
+            snapshot = new TreeMap<>(lastRoundWon);
+            snapshotVersion = version;
+        }
+        try {
+            writeAtomically(snapshot);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error saving progress, retrying in " + retryMillis + " ms", e);
+            synchronized (this) {
+                failedWrites++;
+                notifyAll();
+                if (!writeScheduled) { // a change made during the write may already have scheduled one
+                    writeScheduled = true;
+                    try {
+                        writer.schedule(this::write, retryMillis, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException stopped) {
+                        // closed after giving up, nothing more is retried
+                    }
+                }
+            }
+            retryMillis = Math.min(2 * retryMillis, MAX_RETRY_MILLIS);
+            return;
+        }
+        retryMillis = FIRST_RETRY_MILLIS;
+        synchronized (this) {
+            writtenVersion = Math.max(writtenVersion, snapshotVersion);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Writes the temporary file, forces it to disk, and renames it over the save file.
+     */
+    private void writeAtomically(Map<String, Integer> snapshot) throws IOException {
+        long start = System.nanoTime();
+        StringBuilder text = new StringBuilder(HEADER).append('\n');
+        for (Map.Entry<String, Integer> entry : snapshot.entrySet()) {
+            text.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory();
+        Metrics.PROGRESS_SAVE.recordSince(start);
+    }
+
+    /**
+     * Forces the rename to disk. Not every platform can open a directory, in which case the rename is left to the OS.
+     */
+    private void forceDirectory() {
+        try (FileChannel directory = FileChannel.open(file.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // e.g. Windows, where directories cannot be opened as channels
+        }
+    }
+
+    private synchronized void load() {
+        try {
+            // left behind by a crash mid-write, the save file still holds the last complete write
+            Files.deleteIfExists(tempFile);
+            if (!Files.exists(file)) {
+                return;
+            }
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                parseLine(line.trim());
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error loading progress", e);
+        }
+    }
+
+    private void parseLine(String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+        int separator = line.indexOf('=');
+        String profile = separator < 0 ? DEFAULT_PROFILE : line.substring(0, separator);
+        try {
+            lastRoundWon.put(profile, Integer.parseInt(line.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Ignoring malformed progress line: {0}", line);
+        }
+    }
+
+    private static void checkProfile(String profile) {
+        if (profile.isEmpty() || profile.startsWith("#") || profile.indexOf('=') >= 0
+                || profile.indexOf('\n') >= 0 || profile.indexOf('\r') >= 0 || !profile.equals(profile.trim())) {
+            throw new IllegalArgumentException("Invalid profile name: " + profile);
+        }
+    }
+}
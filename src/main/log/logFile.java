@@ -7,6 +7,8 @@
 
 package main.log;
 
+import main.metrics.Metrics;
+
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -14,53 +16,83 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * The File class is used to log the dealt hands to an external file.
+ * The File class is used to log the dealt hands to an external file. Lines are handed to an AsyncAppender, so
+ * writing to the log never blocks the Swing event thread and is safe to call from any number of threads.
  */
 public class logFile {
-    private static BufferedWriter writer;
+    private static final String FILE_PATH = "CardsDealt.txt";
+    private static final int BUFFER_CAPACITY = 4096; // lines held in memory before the overflow policy applies
+
+    private static volatile AsyncAppender appender;
+    private static volatile Thread shutdownHook;
+
+    private static AsyncAppender.FlushPolicy flushPolicy = AsyncAppender.FlushPolicy.DEFAULT;
+    private static AsyncAppender.OverflowPolicy overflowPolicy = AsyncAppender.OverflowPolicy.BLOCK;
 
     private static final Logger LOGGER = Logger.getLogger(logFile.class.getName());
 
+    /**
+     * Sets how the log file is flushed and what happens when lines arrive faster than the disk takes them.
+     * Applies from the next openFile().
+     * @param flush when buffered lines are flushed
+     * @param overflow whether writers wait or lines are dropped when the buffer is full
+     */
+    public static synchronized void configure(AsyncAppender.FlushPolicy flush, AsyncAppender.OverflowPolicy overflow) {
+        flushPolicy = flush;
+        overflowPolicy = overflow;
+    }
+
     /**
      * Opens the log file for appending.
      */
-    public static void openFile(){
+    public static synchronized void openFile(){
+        closeFile();
         try {
-            writer = new BufferedWriter(new FileWriter("CardsDealt.txt", true));
+            BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH, true));
+            appender = new AsyncAppender(writer, BUFFER_CAPACITY, flushPolicy, overflowPolicy, "log-file-writer");
+            // the log is drained even if the program exits without closeFile, e.g. from the window's close button
+            shutdownHook = new Thread(logFile::closeFile, "log-file-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
             // Add date stamp to the first new line
             SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
             String dateStamp = dateFormat.format(new Date());
-            writer.write(dateStamp);
-            writer.newLine();
+            appender.append(dateStamp);
         } catch (IOException e){
             LOGGER.log(Level.SEVERE, "Error opening file", e);
         }
     }
 
     /**
-     * Write the user's current "hand" to the log file.
+     * Write the user's current "hand" to the log file. Lines the appender does not take, because its buffer is full
+     * under the DROP policy or the file is closed, are counted in {@link Metrics#LOST_LOG_LINES}.
      * @param line A users current "hand".
      */
     public static void writeToFile(String line){
-        try{
-            writer.write(line);
-            writer.newLine();
-        } catch(IOException e){
-            LOGGER.log(Level.SEVERE, "Error writing to file", e);
+        long start = System.nanoTime();
+        AsyncAppender current = appender;
+        if (current == null || !current.append(line)) {
+            Metrics.LOST_LOG_LINES.increment();
+            LOGGER.log(Level.WARNING, "Log line was not written: {0}", line);
         }
+        Metrics.LOG_WRITE.recordSince(start);
     }
 
     /**
-     * Closes the log file.
+     * Closes the log file, after writing out every line still buffered.
      */
-    public static void closeFile(){
-        try{
-            if (writer != null) {
-                writer.close();
+    public static synchronized void closeFile(){
+        if (appender != null) {
+            appender.close();
+            appender = null;
+        }
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // the JVM is already shutting down and the hook is running or has run
             }
-        } catch (IOException e){
-            LOGGER.log(Level.SEVERE, "Error closing file", e);
         }
+        shutdownHook = null;
     }
 
 }
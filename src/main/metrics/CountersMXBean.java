@@ -0,0 +1,37 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.metrics;
+
+/**
+ * The JMX view of the game's counters, totals since the program started.
+ */
+public interface CountersMXBean {
+
+    /**
+     * @return the hands evaluated by the dealer
+     */
+    long getHands();
+
+    /**
+     * @return the hands the dealer chose every card of
+     */
+    long getWins();
+
+    /**
+     * @return the rounds won
+     */
+    long getRoundsWon();
+
+    /**
+     * @return the hands turned away for having been played already in their round
+     */
+    long getDuplicateHands();
+
+    /**
+     * @return the lines of CardsDealt.txt that were not written, dropped because the log fell behind or written
+     * while it was closed
+     */
+    long getLostLogLines();
+}
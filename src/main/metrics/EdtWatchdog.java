@@ -0,0 +1,142 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.metrics;
+
+import java.awt.EventQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EdtWatchdog notices when the Swing event thread is kept busy long enough for the game to stop responding. A
+ * daemon thread posts a heartbeat to the event queue every half threshold; when a heartbeat has waited longer than
+ * the threshold the event thread is counted as stalled and its stack is logged once, which shows the code that
+ * held it. How long each heartbeat waited is also recorded in the "edtLatency" histogram.
+ */
+public final class EdtWatchdog implements EdtWatchdogMXBean {
+
+    public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+
+    private static final Logger LOGGER = Logger.getLogger(EdtWatchdog.class.getName());
+
+    private final LatencyHistogram latency = Metrics.latency("edtLatency");
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong longestStallNanos = new AtomicLong();
+    private volatile long thresholdNanos;
+
+    private volatile long pendingSince; // System.nanoTime() the waiting heartbeat was posted at, 0 if none
+    private volatile boolean reported; // whether the waiting heartbeat's stall was logged already
+    private volatile Thread eventThread; // found by the first heartbeat
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param thresholdMillis how long the event thread may be busy before it counts as stalled
+     */
+    public EdtWatchdog(long thresholdMillis) {
+        setThresholdMillis(thresholdMillis);
+    }
+
+    /**
+     * Starts a watchdog with the default threshold and publishes it over JMX.
+     * @return the watchdog
+     */
+    public static EdtWatchdog startDefault() {
+        EdtWatchdog watchdog = new EdtWatchdog(DEFAULT_THRESHOLD_MILLIS);
+        Metrics.register("type=EdtWatchdog", watchdog);
+        watchdog.start();
+        return watchdog;
+    }
+
+    /**
+     * Starts watching. Checks run every half threshold, as the threshold was when started.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edt-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, thresholdNanos / 2);
+        timer.scheduleAtFixedRate(this::check, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops watching.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * Posts a heartbeat if none is waiting, otherwise checks how long the waiting one has waited.
+     */
+    private void check() {
+        long since = pendingSince;
+        if (since == 0) {
+            long now = System.nanoTime();
+            pendingSince = now;
+            reported = false;
+            EventQueue.invokeLater(() -> heartbeat(now));
+            return;
+        }
+        long waited = System.nanoTime() - since;
+        if (waited > thresholdNanos && !reported) {
+            reported = true;
+            stalls.incrementAndGet();
+            Thread thread = eventThread;
+            Throwable stack = new Throwable("Event thread stack");
+            if (thread != null) {
+                stack.setStackTrace(thread.getStackTrace());
+            }
+            LOGGER.log(Level.WARNING, "Event thread busy for " + waited / 1_000_000 + " ms", stack);
+        }
+    }
+
+    /**
+     * Runs on the event thread.
+     * @param posted System.nanoTime() the heartbeat was posted at
+     */
+    private void heartbeat(long posted) {
+        eventThread = Thread.currentThread();
+        long waited = System.nanoTime() - posted;
+        latency.record(waited);
+        if (waited > thresholdNanos) {
+            longestStallNanos.accumulateAndGet(waited, Math::max);
+        }
+        pendingSince = 0;
+    }
+
+    @Override
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    @Override
+    public double getLongestStallMillis() {
+        return longestStallNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public void setThresholdMillis(long thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive: " + thresholdMillis);
+        }
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.metrics;
+
+/**
+ * The JMX view of the {@link EdtWatchdog}.
+ */
+public interface EdtWatchdogMXBean {
+
+    /**
+     * @return the number of times the event thread was stalled for longer than the threshold
+     */
+    long getStalls();
+
+    /**
+     * @return the longest time a heartbeat waited for the event thread, in milliseconds
+     */
+    double getLongestStallMillis();
+
+    /**
+     * @return how long the event thread may be busy before it counts as stalled, in milliseconds
+     */
+    long getThresholdMillis();
+
+    /**
+     * @param thresholdMillis how long the event thread may be busy before it counts as stalled, in milliseconds
+     */
+    void setThresholdMillis(long thresholdMillis);
+}
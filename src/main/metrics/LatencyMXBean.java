@@ -0,0 +1,46 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.metrics;
+
+/**
+ * The JMX view of a {@link LatencyHistogram}. Percentiles are accurate to within an eighth of their value.
+ */
+public interface LatencyMXBean {
+
+    /**
+     * @return the number of times recorded
+     */
+    long getCount();
+
+    /**
+     * @return the average time, in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * @return the median time, in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * @return the time 90% of calls took at most, in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * @return the time 99% of calls took at most, in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * @return the longest time, in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * Forgets every time recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,137 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics holds the counters and latency histograms the game records as it runs. They are always recorded, which
+ * costs a LongAdder add or a histogram bucket increment, and only summed up when read. {@link #registerMBeans()}
+ * publishes them over JMX under the "main.metrics" domain, e.g. for JConsole or VisualVM.
+ */
+public final class Metrics {
+
+    public static final String DOMAIN = "main.metrics";
+
+    private static final Map<String, Object> MBEANS = new ConcurrentHashMap<>(); // by name, "type=..,name=.."
+    private static boolean registered; // whether MBeans are registered as they are added
+
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    public static final LongAdder HANDS = new LongAdder(); // hands evaluated by the dealer
+    public static final LongAdder WINS = new LongAdder(); // hands the dealer chose every card of
+    public static final LongAdder ROUNDS_WON = new LongAdder();
+    public static final LongAdder DUPLICATE_HANDS = new LongAdder(); // hands turned away as already played
+    public static final LongAdder LOST_LOG_LINES = new LongAdder(); // lines the hand log dropped or could not take
+
+    public static final LatencyHistogram DISPLAY_HAND = latency("displayHand"); // drawing a hand on the EDT
+    public static final LatencyHistogram LOG_WRITE = latency("logWrite"); // handing a line to the log file
+    public static final LatencyHistogram PROGRESS_SAVE = latency("progressSave"); // writing and syncing progress
+
+    private static final int MAX_PATTERN = 64; // patterns with a histogram each, others share pattern 0's
+    private static final LatencyHistogram[] PATTERNS = new LatencyHistogram[MAX_PATTERN + 1];
+
+    static {
+        MBEANS.put("type=Counters", new CountersMXBean() {
+            @Override
+            public long getHands() {
+                return HANDS.sum();
+            }
+
+            @Override
+            public long getWins() {
+                return WINS.sum();
+            }
+
+            @Override
+            public long getRoundsWon() {
+                return ROUNDS_WON.sum();
+            }
+
+            @Override
+            public long getDuplicateHands() {
+                return DUPLICATE_HANDS.sum();
+            }
+
+            @Override
+            public long getLostLogLines() {
+                return LOST_LOG_LINES.sum();
+            }
+        });
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * @param pattern a dealer pattern, by round
+     * @return the histogram of the time the pattern takes to choose cards
+     */
+    public static LatencyHistogram patternLatency(int pattern) {
+        int slot = pattern >= 1 && pattern <= MAX_PATTERN ? pattern : 0;
+        LatencyHistogram histogram = PATTERNS[slot]; // histograms are safely published by their final fields
+        if (histogram == null) {
+            synchronized (PATTERNS) {
+                if (PATTERNS[slot] == null) {
+                    PATTERNS[slot] = latency("pattern-" + slot);
+                }
+                histogram = PATTERNS[slot];
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @param name the name of the timed operation
+     * @return a new histogram, published over JMX with the others
+     */
+    public static LatencyHistogram latency(String name) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        register("type=Latency,name=" + name, histogram);
+        return histogram;
+    }
+
+    /**
+     * Adds an MBean, registering it right away if the MBeans are already registered.
+     * @param name the key properties of the MBean's name, e.g. "type=Latency,name=displayHand"
+     * @param mbean an object implementing an MXBean interface
+     */
+    public static synchronized void register(String name, Object mbean) {
+        MBEANS.put(name, mbean);
+        if (registered) {
+            registerMBean(name, mbean);
+        }
+    }
+
+    /**
+     * Registers every metric, and every metric added later, with the platform MBean server.
+     */
+    public static synchronized void registerMBeans() {
+        if (!registered) {
+            registered = true;
+            MBEANS.forEach(Metrics::registerMBean);
+        }
+    }
+
+    private static void registerMBean(String name, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":" + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Could not register MBean " + name, e);
+        }
+    }
+}
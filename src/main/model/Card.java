@@ -6,32 +6,70 @@ package main.model;
 
 /**
  * Represents a playing card. Contains methods for formatting the card in different ways.
+ * Cards are immutable flyweights: there is exactly one Card object for each of the 52 cards, obtained through
+ * {@link #of(Rank, Suit)}, so the same cards can be shared by every deck, hand, and game without locking.
+ * Whether the dealer chose a card is part of the dealer's selection, not of the card.
  */
-public class Card {
+public final class Card {
+    private static final Card[] CARDS = new Card[PackedHand.CARD_COUNT]; // the 52 cards, indexed by ordinal
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                CARDS[PackedHand.ordinal(rank, suit)] = new Card(rank, suit);
+            }
+        }
+    }
+
     private final Rank rank;
     private final Suit suit;
-    private boolean chosenByDealer = false;
+    private final int ordinal;
+    private final String loggerText; // e.g. "10H", built once since cards never change
+    private final String chosenLoggerText; // e.g. "*10H*"
 
     /**
-     * Constructor for the Card class.
+     * Constructor for the Card class, only used to build the 52 shared cards.
      * @param rank The rank of the card.
      * @param suit The suit of the card.
      */
-    public Card(Rank rank, Suit suit) {
+    private Card(Rank rank, Suit suit) {
         this.rank = rank;
         this.suit = suit;
+        this.ordinal = PackedHand.ordinal(rank, suit);
+        this.loggerText = format_rank_for_logger() + format_suit_for_logger();
+        this.chosenLoggerText = "*" + loggerText + "*";
+    }
+
+    /**
+     * @param rank The rank of the card.
+     * @param suit The suit of the card.
+     * @return The shared card with the given rank and suit.
+     */
+    public static Card of(Rank rank, Suit suit) {
+        return CARDS[PackedHand.ordinal(rank, suit)];
+    }
+
+    /**
+     * @param ordinal The ordinal of the card, suit * 13 + rank.
+     * @return The shared card with the given ordinal.
+     */
+    public static Card of(int ordinal) {
+        return CARDS[ordinal];
     }
+
     /**
      * @return A card formatted for logging.
      */
     public String format_card_for_logger() {
-        String rankString = format_rank_for_logger();
-        String suitString = format_suit_for_logger();
-        if (this.chosenByDealer) {
-            return "*" + rankString + suitString + "*";
-        } else {
-            return rankString + suitString;
-        }
+        return format_card_for_logger(false);
+    }
+
+    /**
+     * @param chosenByDealer whether the dealer chose the card, chosen cards are wrapped in stars
+     * @return A card formatted for logging.
+     */
+    public String format_card_for_logger(boolean chosenByDealer) {
+        return chosenByDealer ? chosenLoggerText : loggerText;
     }
     /**
      * @return The file path for the current card.
@@ -150,18 +188,11 @@ public class Card {
      * @return the rank of the current card
      */
     public Rank getRank() { return this.rank; }
-    /**
-     * @return Whether the card has been chosen by the dealer.
-     */
-    public boolean getChosenByDealer() {
-        return chosenByDealer;
-    }
 
     /**
-     * Sets whether the card has been chosen by the dealer.
-     * @param b The value to set.
+     * @return the position of the card in a 52 card deck (suit * 13 + rank), used as its bit in a PackedHand
      */
-    public void setChosenByDealer(boolean b) {
-        this.chosenByDealer = b;
+    public int getOrdinal() {
+        return ordinal;
     }
 }
@@ -0,0 +1,143 @@
+/*
+    Authored by Dustin Yochim
+ */
+package main.model;
+
+import java.util.Arrays;
+
+/**
+ * CardRegistry looks up the shared Card objects in constant time, by ordinal, by rank and suit, or by the text
+ * form written by {@link Card#format_card_for_logger(boolean)} ("10H", "*AS*"). Parsing works on a slice of a
+ * CharSequence or a byte array and does not allocate, so log readers can turn millions of card strings back into
+ * cards without creating a String per card.
+ */
+public final class CardRegistry {
+
+    /**
+     * Set in the result of {@link #parseToken} when the card was wrapped in stars, i.e. chosen by the dealer.
+     */
+    public static final int CHOSEN = 1 << 6;
+
+    private static final int INVALID = -1;
+
+    private static final byte[] RANK_BY_CHAR = new byte[128]; // rank ordinal for single character ranks, or -1
+    private static final byte[] SUIT_BY_CHAR = new byte[128]; // suit ordinal for suit letters, or -1
+
+    static {
+        Arrays.fill(RANK_BY_CHAR, (byte) INVALID);
+        Arrays.fill(SUIT_BY_CHAR, (byte) INVALID);
+        for (Rank rank : Rank.values()) {
+            String text = Card.of(rank, Suit.CLUBS).format_rank_for_logger();
+            if (text.length() == 1) {
+                RANK_BY_CHAR[text.charAt(0)] = (byte) rank.ordinal();
+            }
+        }
+        for (Suit suit : Suit.values()) {
+            SUIT_BY_CHAR[suit.name().charAt(0)] = (byte) suit.ordinal();
+        }
+    }
+
+    private CardRegistry() {
+    }
+
+    /**
+     * @param ordinal a card ordinal, suit * 13 + rank
+     * @return the shared card with the given ordinal
+     */
+    public static Card get(int ordinal) {
+        return Card.of(ordinal);
+    }
+
+    /**
+     * @param rank the rank of the card
+     * @param suit the suit of the card
+     * @return the shared card with the given rank and suit
+     */
+    public static Card get(Rank rank, Suit suit) {
+        return Card.of(rank, suit);
+    }
+
+    /**
+     * @param text a card in the logger form, e.g. "10H" or "*AS*"
+     * @return the card, or null if the text is not a card
+     */
+    public static Card parse(CharSequence text) {
+        int ordinal = parseOrdinal(text, 0, text.length());
+        return ordinal == INVALID ? null : Card.of(ordinal);
+    }
+
+    /**
+     * @param text text holding a card in the logger form
+     * @param start the index of the first character of the card
+     * @param end the index after the last character of the card
+     * @return the card's ordinal, or -1 if the slice is not a card
+     */
+    public static int parseOrdinal(CharSequence text, int start, int end) {
+        int token = parseToken(text, start, end);
+        return token == INVALID ? INVALID : token & ~CHOSEN;
+    }
+
+    /**
+     * @param text text holding a card in the logger form
+     * @param start the index of the first character of the card
+     * @param end the index after the last character of the card
+     * @return the card's ordinal, with {@link #CHOSEN} set if it was wrapped in stars, or -1 if the slice is not a
+     * card
+     */
+    public static int parseToken(CharSequence text, int start, int end) {
+        int chosen = 0;
+        if (end - start >= 2 && text.charAt(start) == '*' && text.charAt(end - 1) == '*') {
+            chosen = CHOSEN;
+            start++;
+            end--;
+        }
+        int length = end - start;
+        if (length == 2) {
+            return encode(rankOf(text.charAt(start)), suitOf(text.charAt(start + 1)), chosen);
+        }
+        if (length == 3 && text.charAt(start) == '1' && text.charAt(start + 1) == '0') {
+            return encode(Rank.TEN.ordinal(), suitOf(text.charAt(start + 2)), chosen);
+        }
+        return INVALID;
+    }
+
+    /**
+     * The byte array counterpart of {@link #parseToken(CharSequence, int, int)}, for ASCII text read from a file.
+     * @param bytes bytes holding a card in the logger form
+     * @param start the index of the first byte of the card
+     * @param end the index after the last byte of the card
+     * @return the card's ordinal, with {@link #CHOSEN} set if it was wrapped in stars, or -1 if the slice is not a
+     * card
+     */
+    public static int parseToken(byte[] bytes, int start, int end) {
+        int chosen = 0;
+        if (end - start >= 2 && bytes[start] == '*' && bytes[end - 1] == '*') {
+            chosen = CHOSEN;
+            start++;
+            end--;
+        }
+        int length = end - start;
+        if (length == 2) {
+            return encode(rankOf((char) bytes[start]), suitOf((char) bytes[start + 1]), chosen);
+        }
+        if (length == 3 && bytes[start] == '1' && bytes[start + 1] == '0') {
+            return encode(Rank.TEN.ordinal(), suitOf((char) bytes[start + 2]), chosen);
+        }
+        return INVALID;
+    }
+
+    private static int rankOf(char c) {
+        return c < RANK_BY_CHAR.length ? RANK_BY_CHAR[c] : INVALID;
+    }
+
+    private static int suitOf(char c) {
+        return c < SUIT_BY_CHAR.length ? SUIT_BY_CHAR[c] : INVALID;
+    }
+
+    private static int encode(int rank, int suit, int chosen) {
+        if (rank == INVALID || suit == INVALID) {
+            return INVALID;
+        }
+        return (suit * PackedHand.RANK_COUNT + rank) | chosen;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Combinations walks every k card hand of the deck as a PackedHand, in increasing order of the packed long. The
+ * next hand is found with Gosper's hack in a few instructions, so walking allocates nothing. A walk can be split at
+ * any position: hands are numbered in walking order by {@link HandIndex}, and the first hand of the second half is
+ * computed from its number. That makes it a good source for a parallel stream, see
+ * {@link #stream(int, boolean)}.
+ */
+public final class Combinations implements Spliterator.OfLong {
+
+    private static final int MIN_SPLIT = 1 << 12; // hands below which a walk is not worth splitting
+
+    private final int handSize;
+    private long next; // the next hand to visit
+    private long index; // the number of the next hand
+    private final long end; // the number of the first hand not to visit
+
+    private Combinations(int handSize, long from, long end) {
+        this.handSize = handSize;
+        this.index = from;
+        this.end = end;
+        this.next = from < end ? HandIndex.unrank(from, handSize) : PackedHand.EMPTY;
+    }
+
+    /**
+     * @param handSize the number of cards in a hand, 0 to 52
+     * @return a walk over every hand of that many cards
+     */
+    public static Combinations of(int handSize) {
+        return new Combinations(handSize, 0, HandIndex.count(handSize));
+    }
+
+    /**
+     * @param handSize the number of cards in a hand, 0 to 52
+     * @param parallel whether the stream is split across the common fork/join pool
+     * @return every hand of that many cards, as PackedHands
+     */
+    public static LongStream stream(int handSize, boolean parallel) {
+        return StreamSupport.longStream(of(handSize), parallel);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (index >= end) {
+            return false;
+        }
+        action.accept(next);
+        advance();
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        for (; index < end; advance()) {
+            action.accept(next);
+        }
+    }
+
+    /**
+     * Moves on to the next larger hand with the same number of cards, by Gosper's hack.
+     */
+    private void advance() {
+        index++;
+        if (index < end) {
+            long lowest = next & -next;
+            long carried = next + lowest;
+            next = carried | ((carried ^ next) >>> (2 + Long.numberOfTrailingZeros(next)));
+        }
+    }
+
+    @Override
+    public Combinations trySplit() {
+        if (end - index < MIN_SPLIT) {
+            return null;
+        }
+        long middle = index + (end - index) / 2;
+        Combinations first = new Combinations(handSize, index, middle);
+        index = middle;
+        next = HandIndex.unrank(middle, handSize);
+        return first;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+    }
+
+    @Override
+    public Comparator<? super Long> getComparator() {
+        return null; // sorted in natural order
+    }
+}
@@ -0,0 +1,117 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * DealEngine deals random hands without shuffling a whole deck. It keeps its own order of the 52 card ordinals and
+ * deals n cards with a partial Fisher-Yates shuffle: position i is swapped with a random position from i on, for
+ * the first n positions only. Whatever order the cards were left in, this deals every set of n cards with the same
+ * probability, so the order is never reset between deals.
+ *
+ * An engine is seeded explicitly for reproducible games, and {@link #split()} gives an engine with an independent
+ * stream, e.g. one per thread of a simulation. An engine is not thread-safe; give each thread its own.
+ */
+public final class DealEngine {
+
+    private final int[] order = new int[PackedHand.CARD_COUNT]; // card ordinals, the first cards of a deal in front
+    private final SplittableRandom random;
+
+    /**
+     * Creates an engine seeded from the clock and the engines created before it.
+     */
+    public DealEngine() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * @param seed the seed of the engine, the same seed dealing the same hands
+     */
+    public DealEngine(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private DealEngine(SplittableRandom random) {
+        this.random = random;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Use one engine per thread or per simulated game. Splitting is deterministic, so a seeded engine splits into
+     * the same engines every time.
+     * @return a new engine dealing from a random stream independent of this one
+     */
+    public DealEngine split() {
+        return new DealEngine(random.split());
+    }
+
+    /**
+     * @param count the number of cards to deal, 0 to 52
+     * @return count different random cards, as a PackedHand
+     */
+    public long deal(int count) {
+        checkCount(count);
+        long hand = PackedHand.EMPTY;
+        for (int i = 0; i < count; i++) {
+            hand |= 1L << swapIntoPlace(i);
+        }
+        return hand;
+    }
+
+    /**
+     * Adds count different random cards to the hand, in the order they were dealt.
+     * @param hand the hand to deal into
+     * @param count the number of cards to deal, 0 to 52
+     */
+    public void deal(Hand hand, int count) {
+        checkCount(count);
+        for (int i = 0; i < count; i++) {
+            hand.addCard(Card.of(swapIntoPlace(i)));
+        }
+    }
+
+    /**
+     * Deals a batch of hands into a buffer the caller reuses, so dealing allocates nothing.
+     * @param hands the buffer to deal into
+     * @param offset where in the buffer the first hand goes
+     * @param handCount the number of hands to deal
+     * @param count the number of cards in every hand, 0 to 52
+     */
+    public void deal(long[] hands, int offset, int handCount, int count) {
+        checkCount(count);
+        if (offset < 0 || handCount < 0 || offset + handCount > hands.length) {
+            throw new IndexOutOfBoundsException("Cannot deal " + handCount + " hands at " + offset + " into "
+                    + hands.length);
+        }
+        for (int h = offset; h < offset + handCount; h++) {
+            long hand = PackedHand.EMPTY;
+            for (int i = 0; i < count; i++) {
+                hand |= 1L << swapIntoPlace(i);
+            }
+            hands[h] = hand;
+        }
+    }
+
+    /**
+     * Swaps position i with a random position from i on.
+     * @return the card now at position i
+     */
+    private int swapIntoPlace(int i) {
+        int j = i + random.nextInt(order.length - i);
+        int card = order[j];
+        order[j] = order[i];
+        order[i] = card;
+        return card;
+    }
+
+    private static void checkCount(int count) {
+        if (count < 0 || count > PackedHand.CARD_COUNT) {
+            throw new IllegalArgumentException("Can only deal 0 to " + PackedHand.CARD_COUNT + " cards: " + count);
+        }
+    }
+}
@@ -16,23 +16,31 @@ public class Deck {
 
     private final List<Card> cards; // "cards" represents the deck of cards
 
+    private final DealEngine dealEngine; // deals random hands without touching the order of cards
+
     /**
      * Constructor initializes ArrayList of Cards.
      */
     public Deck() {
+        this(new DealEngine());
+    }
+
+    /**
+     * @param dealEngine the engine dealing random hands, e.g. a seeded one for reproducible games
+     */
+    public Deck(DealEngine dealEngine) {
         cards = new ArrayList<>();
+        this.dealEngine = dealEngine;
         initializeDeck();
     }
 
+    /**
+     * @param rank the rank of the card
+     * @param suit the suit of the card
+     * @return the card with the given rank and suit, looked up in constant time
+     */
     public Card getCard(Rank rank, Suit suit) {
-        Card foundCard = null;
-        for (Card card : this.cards) {
-            if (card.getRank().equals(rank) && card.getSuit().equals(suit)) {
-                foundCard = card;
-                break;
-            }
-        }
-        return foundCard;
+        return CardRegistry.get(rank, suit);
     }
 
     /**
@@ -41,7 +49,7 @@ public class Deck {
     private void initializeDeck() {
         for (Suit suit : Suit.values()) {
             for (Rank rank : Rank.values()) {
-                cards.add(new Card(rank, suit));
+                cards.add(Card.of(rank, suit));
             }
         }
     }
@@ -54,19 +62,12 @@ public class Deck {
     }
 
     /**
-     * Shuffles the card deck, and then deals the given numCards into hand.
+     * Deals the given numCards into hand at random. Only the cards dealt are shuffled, by the deck's DealEngine,
+     * and the order of the deck is left as it was.
      * @param hand The user's "hand" of cards.
      * @param numCards The number of cards to deal.
      */
     public void dealRandomCardsIntoHand(Hand hand, int numCards) {
-        this.shuffleDeck();
-
-        /*
-        Because the deck is shuffled, there is no need for a random number generator,
-        instead the first four cards can just be drawn.
-         */
-        for (int i = 0; i < numCards; i++) {
-            hand.addCard(cards.get(i));
-        }
+        dealEngine.deal(hand, numCards);
     }
 }
@@ -41,9 +41,17 @@ public class Hand {
      * @return A users current hand, formatted for the logger.
      */
     public String format_hand_for_logger() {
+        return format_hand_for_logger(PackedHand.EMPTY);
+    }
+
+    /**
+     * @param chosenByDealer the packed set of cards the dealer chose, they are wrapped in stars
+     * @return A users current hand, formatted for the logger.
+     */
+    public String format_hand_for_logger(long chosenByDealer) {
         StringBuilder sb = new StringBuilder();
         for (Card card : cards) {
-            sb.append(card.format_card_for_logger()).append(",");
+            sb.append(card.format_card_for_logger(PackedHand.contains(chosenByDealer, card))).append(",");
         }
         if (!sb.isEmpty()) {
             // Remove trailing comma
@@ -52,6 +60,20 @@ public class Hand {
         return sb.toString();
     }
 
+    /**
+     * @param selected a packed set of cards
+     * @return a new hand with the cards of this hand that are in the set, in the same order
+     */
+    public Hand select(long selected) {
+        Hand hand = new Hand();
+        for (Card card : cards) {
+            if (PackedHand.contains(selected, card)) {
+                hand.addCard(card);
+            }
+        }
+        return hand;
+    }
+
     /**
      * removes all cards from the hand
      */
@@ -0,0 +1,95 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+/**
+ * HandIndex numbers the hands of k cards densely from 0 to C(52,k) - 1 with the combinatorial number system: the
+ * hand with cards c1 &lt; c2 &lt; ... &lt; ck, by ordinal, is number C(c1,1) + C(c2,2) + ... + C(ck,k). A hand's
+ * number does not depend on the order its cards were picked in, and hands are numbered in increasing order of their
+ * PackedHand. Once hands are numbers, data about every hand can be kept in a flat array or bitset indexed by the
+ * number rather than in a hash set. The binomial coefficients are computed once, and nothing here allocates.
+ */
+public final class HandIndex {
+
+    // BINOMIAL[n][k] = n choose k, for every n and k up to the size of the deck
+    private static final long[][] BINOMIAL = new long[PackedHand.CARD_COUNT + 1][PackedHand.CARD_COUNT + 1];
+
+    static {
+        for (int n = 0; n <= PackedHand.CARD_COUNT; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    private HandIndex() {
+    }
+
+    /**
+     * @param handSize the number of cards in a hand, 0 to 52
+     * @return the number of different hands of that many cards, C(52, handSize)
+     */
+    public static long count(int handSize) {
+        checkHandSize(handSize);
+        return BINOMIAL[PackedHand.CARD_COUNT][handSize];
+    }
+
+    /**
+     * @param hand a packed hand of any size
+     * @return the number of the hand among the hands of its size, 0 to count(size) - 1
+     */
+    public static long rank(long hand) {
+        long index = 0;
+        int k = 1;
+        for (long rest = hand; rest != 0; rest &= rest - 1) {
+            index += BINOMIAL[Long.numberOfTrailingZeros(rest)][k++];
+        }
+        return index;
+    }
+
+    /**
+     * @param hand a hand, in any order
+     * @return the number of the hand among the hands of its size
+     */
+    public static long rank(Hand hand) {
+        return rank(PackedHand.fromHand(hand));
+    }
+
+    /**
+     * @param index the number of a hand, 0 to count(handSize) - 1
+     * @param handSize the number of cards in the hand, 0 to 52
+     * @return the hand with that number, as a PackedHand
+     */
+    public static long unrank(long index, int handSize) {
+        if (index < 0 || index >= count(handSize)) {
+            throw new IllegalArgumentException("No hand of " + handSize + " cards is number " + index);
+        }
+        long hand = PackedHand.EMPTY;
+        int high = PackedHand.CARD_COUNT - 1; // the highest card the rest of the hand can hold
+        // the highest card is the largest c with C(c, k) <= index, then the rest is unranked the same way
+        for (int k = handSize; k > 0; k--) {
+            int low = k - 1; // C(k - 1, k) = 0, so the search always finds a card
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (BINOMIAL[middle][k] <= index) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            hand |= 1L << low;
+            index -= BINOMIAL[low][k];
+            high = low - 1;
+        }
+        return hand;
+    }
+
+    private static void checkHandSize(int handSize) {
+        if (handSize < 0 || handSize > PackedHand.CARD_COUNT) {
+            throw new IllegalArgumentException("Hand size must be 0 to " + PackedHand.CARD_COUNT + ": " + handSize);
+        }
+    }
+}
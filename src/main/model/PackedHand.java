@@ -0,0 +1,214 @@
+/*
+    Authored by Dustin Yochim
+ */
+package main.model;
+
+import java.util.ArrayList;
+
+/**
+ * PackedHand represents a hand of cards as a single long. Each card owns one bit, its ordinal
+ * (suit * 13 + rank), so a hand of any size fits in the low 52 bits. Set operations on hands become bitwise
+ * operations, e.g. the red cards of a hand are {@code hand & RED} and their count is a popcount.
+ * All methods are static and work on primitive longs, so evaluating hands does not allocate.
+ */
+public final class PackedHand {
+
+    public static final int RANK_COUNT = 13; // number of ranks in a suit
+    public static final int SUIT_COUNT = 4; // number of suits in a deck
+    public static final int CARD_COUNT = RANK_COUNT * SUIT_COUNT; // number of cards in a deck
+
+    public static final long EMPTY = 0L; // a hand with no cards
+    public static final long FULL_DECK = (1L << CARD_COUNT) - 1; // a hand holding every card
+
+    /******************************* SUIT MASKS **********************************************/
+    public static final long CLUBS = (1L << RANK_COUNT) - 1;
+    public static final long DIAMONDS = CLUBS << RANK_COUNT;
+    public static final long HEARTS = CLUBS << (2 * RANK_COUNT);
+    public static final long SPADES = CLUBS << (3 * RANK_COUNT);
+
+    public static final long RED = DIAMONDS | HEARTS;
+    public static final long BLACK = CLUBS | SPADES;
+
+    /******************************* RANK MASKS **********************************************/
+    private static final long ONE_OF_EACH_SUIT = 1L | 1L << RANK_COUNT | 1L << (2 * RANK_COUNT) | 1L << (3 * RANK_COUNT);
+
+    public static final long ACES = ONE_OF_EACH_SUIT << Rank.ACE.ordinal();
+    public static final long TWOS = ONE_OF_EACH_SUIT << Rank.TWO.ordinal();
+    public static final long THREES = ONE_OF_EACH_SUIT << Rank.THREE.ordinal();
+    public static final long FOURS = ONE_OF_EACH_SUIT << Rank.FOUR.ordinal();
+    public static final long FIVES = ONE_OF_EACH_SUIT << Rank.FIVE.ordinal();
+    public static final long SIXES = ONE_OF_EACH_SUIT << Rank.SIX.ordinal();
+    public static final long SEVENS = ONE_OF_EACH_SUIT << Rank.SEVEN.ordinal();
+    public static final long EIGHTS = ONE_OF_EACH_SUIT << Rank.EIGHT.ordinal();
+    public static final long NINES = ONE_OF_EACH_SUIT << Rank.NINE.ordinal();
+    public static final long TENS = ONE_OF_EACH_SUIT << Rank.TEN.ordinal();
+    public static final long JACKS = ONE_OF_EACH_SUIT << Rank.JACK.ordinal();
+    public static final long QUEENS = ONE_OF_EACH_SUIT << Rank.QUEEN.ordinal();
+    public static final long KINGS = ONE_OF_EACH_SUIT << Rank.KING.ordinal();
+
+    public static final long FACE_CARDS = JACKS | QUEENS | KINGS;
+    public static final long SINGLE_DIGITS = TWOS | THREES | FOURS | FIVES | SIXES | SEVENS | EIGHTS | NINES;
+    public static final long SINGLE_DIGIT_PRIMES = TWOS | THREES | FIVES | SEVENS;
+
+    // VALUE_BITS[k] holds the cards whose rank value, ace 1 up to king 13, has bit k set
+    private static final long[] VALUE_BITS = new long[4];
+
+    static {
+        for (int rank = 0; rank < RANK_COUNT; rank++) {
+            for (int k = 0; k < VALUE_BITS.length; k++) {
+                if (((rank + 1) & (1 << k)) != 0) {
+                    VALUE_BITS[k] |= ONE_OF_EACH_SUIT << rank;
+                }
+            }
+        }
+    }
+
+    private static final Rank[] RANKS = Rank.values(); // cached, values() returns a new array on every call
+    private static final Suit[] SUITS = Suit.values();
+
+    private PackedHand() {
+    }
+
+    /**
+     * @param rank the rank of a card
+     * @param suit the suit of a card
+     * @return the ordinal of the card, suit * 13 + rank
+     */
+    public static int ordinal(Rank rank, Suit suit) {
+        return suit.ordinal() * RANK_COUNT + rank.ordinal();
+    }
+
+    /**
+     * @param card a playing card
+     * @return a hand containing only the given card
+     */
+    public static long of(Card card) {
+        return 1L << card.getOrdinal();
+    }
+
+    /**
+     * @param rank the rank of a card
+     * @param suit the suit of a card
+     * @return a hand containing only the card with the given rank and suit
+     */
+    public static long of(Rank rank, Suit suit) {
+        return 1L << ordinal(rank, suit);
+    }
+
+    /**
+     * @param suit a suit
+     * @return the mask of all 13 cards in the given suit
+     */
+    public static long suitMask(Suit suit) {
+        return CLUBS << (suit.ordinal() * RANK_COUNT);
+    }
+
+    /**
+     * @param rank a rank
+     * @return the mask of all 4 cards with the given rank
+     */
+    public static long rankMask(Rank rank) {
+        return ONE_OF_EACH_SUIT << rank.ordinal();
+    }
+
+    /**
+     * @param hand a hand of cards
+     * @return the packed form of the hand, the order of the cards is not kept
+     */
+    public static long fromHand(Hand hand) {
+        long packed = EMPTY;
+        ArrayList<Card> cards = hand.getHand();
+        for (int i = 0; i < cards.size(); i++) {
+            packed |= of(cards.get(i));
+        }
+        return packed;
+    }
+
+    /**
+     * @param packed a packed hand
+     * @return a Hand holding the cards of the packed hand, ordered by ordinal
+     */
+    public static Hand toHand(long packed) {
+        Hand hand = new Hand();
+        for (long rest = packed; rest != 0; rest &= rest - 1) {
+            hand.addCard(CardRegistry.get(Long.numberOfTrailingZeros(rest)));
+        }
+        return hand;
+    }
+
+    /**
+     * @param ordinal a card ordinal
+     * @return the rank of the card with the given ordinal
+     */
+    public static Rank rankOf(int ordinal) {
+        return RANKS[ordinal % RANK_COUNT];
+    }
+
+    /**
+     * @param ordinal a card ordinal
+     * @return the suit of the card with the given ordinal
+     */
+    public static Suit suitOf(int ordinal) {
+        return SUITS[ordinal / RANK_COUNT];
+    }
+
+    /**
+     * @param packed a packed hand
+     * @return the number of cards in the hand
+     */
+    public static int size(long packed) {
+        return Long.bitCount(packed);
+    }
+
+    /**
+     * @param packed a packed hand
+     * @param card a playing card
+     * @return whether the hand holds the card
+     */
+    public static boolean contains(long packed, Card card) {
+        return (packed & of(card)) != 0;
+    }
+
+    /**
+     * @param packed a packed hand
+     * @param mask a set of cards, e.g. one of the suit or rank masks
+     * @return the number of cards in the hand that are also in the mask
+     */
+    public static int count(long packed, long mask) {
+        return Long.bitCount(packed & mask);
+    }
+
+    /**
+     * Adds up the hand bit-sliced: bit k of every card's value is in VALUE_BITS[k], so the sum takes 4 bit counts.
+     * @param packed a packed hand
+     * @return the sum of the ranks of the cards in the hand, ace 1 up to king 13
+     */
+    public static int rankSum(long packed) {
+        return Long.bitCount(packed & VALUE_BITS[0]) + 2 * Long.bitCount(packed & VALUE_BITS[1])
+                + 4 * Long.bitCount(packed & VALUE_BITS[2]) + 8 * Long.bitCount(packed & VALUE_BITS[3]);
+    }
+
+    /**
+     * Folds the four suits on top of each other.
+     * @param packed a packed hand
+     * @return a 13 bit set with bit r set if the hand holds a card of rank ordinal r
+     */
+    public static int rankSet(long packed) {
+        long folded = packed | packed >>> RANK_COUNT | packed >>> (2 * RANK_COUNT) | packed >>> (3 * RANK_COUNT);
+        return (int) (folded & CLUBS);
+    }
+
+    /**
+     * @param packed a packed hand
+     * @return a 4 bit set with bit s set if the hand holds a card of suit ordinal s
+     */
+    public static int suitSet(long packed) {
+        int suits = 0;
+        for (int s = 0; s < SUIT_COUNT; s++) {
+            if ((packed & (CLUBS << (s * RANK_COUNT))) != 0) {
+                suits |= 1 << s;
+            }
+        }
+        return suits;
+    }
+}
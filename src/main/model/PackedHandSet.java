@@ -0,0 +1,130 @@
+/*
+    Authored by Dustin Yochim
+ */
+package main.model;
+
+import java.util.Arrays;
+
+/**
+ * PackedHandSet is a set of hands stored as PackedHand longs. A packed hand does not depend on the order the cards
+ * were picked in, so it is a canonical key for the hand. The set uses open addressing with linear probing over a
+ * primitive long array, so adding and checking a hand are constant time and never box.
+ */
+public class PackedHandSet {
+
+    private static final int DEFAULT_CAPACITY = 16; // a power of two
+
+    private long[] keys; // PackedHand.EMPTY marks a free slot
+    private boolean containsEmpty; // the empty hand cannot be stored in keys, so it is tracked on its own
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    public PackedHandSet() {
+        keys = new long[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @param hand a packed hand
+     * @return true if the hand was added, false if it was already in the set
+     */
+    public boolean add(long hand) {
+        if (hand == PackedHand.EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(hand) & mask;
+        while (keys[slot] != PackedHand.EMPTY) {
+            if (keys[slot] == hand) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = hand;
+        size++;
+        // keep the table at most half full so probe sequences stay short
+        if (2 * size > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param hand a packed hand
+     * @return whether the hand is in the set
+     */
+    public boolean contains(long hand) {
+        if (hand == PackedHand.EMPTY) {
+            return containsEmpty;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(hand) & mask;
+        long key;
+        while ((key = keys[slot]) != PackedHand.EMPTY) {
+            if (key == hand) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of hands in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the set holds no hands
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every hand from the set, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, PackedHand.EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    /**
+     * Doubles the table and re-inserts every hand.
+     */
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        int mask = keys.length - 1;
+        for (long hand : old) {
+            if (hand != PackedHand.EMPTY) {
+                int slot = hash(hand) & mask;
+                while (keys[slot] != PackedHand.EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = hand;
+            }
+        }
+    }
+
+    /**
+     * Spreads the card bits over the whole int, using the murmur3 finalizer.
+     */
+    private static int hash(long hand) {
+        hand ^= hand >>> 33;
+        hand *= 0xff51afd7ed558ccdL;
+        hand ^= hand >>> 33;
+        hand *= 0xc4ceb9fe1a85ec53L;
+        hand ^= hand >>> 33;
+        return (int) hand;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.view;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * AudioService plays the game's sound effects without holding up the caller. Every sound is decoded once and kept
+ * in a few open Clips, so playing it only rewinds a Clip that is not playing and starts it. Loading and playing run
+ * on one daemon thread; {@link #play(Sound)} just queues the request and returns, so it is safe to call from the
+ * event thread. If the machine has no audio line the sounds are skipped and the game goes on silently.
+ */
+public class AudioService {
+
+    public static final int DEFAULT_CLIPS_PER_SOUND = 2; // how many times a sound can overlap itself
+
+    private static final String SOUND_FOLDER = "/main/resources/sound/";
+
+    private static final Logger LOGGER = Logger.getLogger(AudioService.class.getName());
+
+    /**
+     * The sound effects of the game.
+     */
+    public enum Sound {
+        VICTORY("victory.wav"); // a round was won
+
+        private final String file;
+
+        Sound(String file) {
+            this.file = file;
+        }
+    }
+
+    private final int clipsPerSound;
+    private final Map<Sound, Clip[]> clips = new EnumMap<>(Sound.class); // only touched on the audio thread
+    private final Map<Sound, Integer> nextClip = new EnumMap<>(Sound.class); // the clip to take when all are busy
+    private final ExecutorService audioThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audio");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a service with {@link #DEFAULT_CLIPS_PER_SOUND} clips per sound and starts loading the sounds.
+     */
+    public AudioService() {
+        this(DEFAULT_CLIPS_PER_SOUND);
+    }
+
+    /**
+     * @param clipsPerSound how many open clips each sound gets, at least 1
+     */
+    public AudioService(int clipsPerSound) {
+        if (clipsPerSound < 1) {
+            throw new IllegalArgumentException("Each sound needs a clip: " + clipsPerSound);
+        }
+        this.clipsPerSound = clipsPerSound;
+        submit(this::loadAll);
+    }
+
+    /**
+     * Plays a sound from the start, returning at once. Sounds asked for before loading finished play once it does.
+     * @param sound the sound to play
+     */
+    public void play(Sound sound) {
+        Objects.requireNonNull(sound);
+        submit(() -> start(sound));
+    }
+
+    /**
+     * Stops every sound and closes the clips. Sounds played afterwards are ignored.
+     */
+    public void close() {
+        submit(() -> {
+            for (Clip[] pool : clips.values()) {
+                for (Clip clip : pool) {
+                    clip.close();
+                }
+            }
+            clips.clear();
+        });
+        audioThread.shutdown();
+    }
+
+    private void submit(Runnable task) {
+        try {
+            audioThread.execute(task);
+        } catch (RejectedExecutionException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Decodes every sound and opens its clips. Runs on the audio thread.
+     */
+    private void loadAll() {
+        for (Sound sound : Sound.values()) {
+            try {
+                clips.put(sound, load(sound));
+                nextClip.put(sound, 0);
+            } catch (IOException | UnsupportedAudioFileException e) {
+                LOGGER.log(Level.WARNING, "Could not load sound " + sound.file, e);
+            } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+                // no audio device, e.g. a headless machine
+                LOGGER.log(Level.INFO, "No audio line, sound effects are off: {0}", e.toString());
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return clipsPerSound open clips holding the decoded sound
+     */
+    private Clip[] load(Sound sound) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        String path = SOUND_FOLDER + sound.file;
+        AudioFormat format;
+        byte[] data;
+        // AudioSystem needs a stream that supports mark to read the file's header
+        try (InputStream in = new BufferedInputStream(Objects.requireNonNull(
+                AudioService.class.getResourceAsStream(path), path));
+             AudioInputStream audio = AudioSystem.getAudioInputStream(in)) {
+            format = audio.getFormat();
+            data = audio.readAllBytes();
+        }
+        Clip[] pool = new Clip[clipsPerSound];
+        try {
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = AudioSystem.getClip();
+                pool[i].open(format, data, 0, data.length);
+            }
+        } catch (LineUnavailableException | RuntimeException e) {
+            for (Clip clip : pool) {
+                if (clip != null) {
+                    clip.close();
+                }
+            }
+            throw e;
+        }
+        return pool;
+    }
+
+    /**
+     * Starts an idle clip of the sound, or if all are busy restarts them in turn. Runs on the
+     * audio thread.
+     */
+    private void start(Sound sound) {
+        Clip[] pool = clips.get(sound);
+        if (pool == null) {
+            return; // not loaded
+        }
+        Clip clip = null;
+        for (Clip candidate : pool) {
+            if (!candidate.isActive()) {
+                clip = candidate;
+                break;
+            }
+        }
+        if (clip == null) {
+            int next = nextClip.get(sound);
+            clip = pool[next];
+            nextClip.put(sound, (next + 1) % pool.length);
+            clip.stop();
+        }
+        clip.setFramePosition(0);
+        clip.start();
+    }
+}
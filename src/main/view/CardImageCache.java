@@ -0,0 +1,197 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.view;
+
+import main.model.Card;
+import main.model.PackedHand;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * CardImageCache decodes the playing card images once and keeps them scaled to the size they are drawn at, so
+ * redrawing a hand only blits images that are already in memory. Each entry holds a 1x image plus, on HiDPI
+ * screens, a variant at the screen's scale, wrapped in a multi-resolution image that Swing picks from. Entries are
+ * kept in least recently used order and the oldest are dropped once the cache passes its memory bound.
+ */
+public class CardImageCache {
+
+    public static final int CARD_WIDTH = 90; // the size cards are drawn at in the hand display
+    public static final int CARD_HEIGHT = 140;
+
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024; // all 52 cards at 2x take about 13MB
+
+    private static final String IMAGE_FOLDER = "/main/resources/PlayingCards/";
+
+    private final long maxBytes;
+    private final double hiDpiScale; // the screen's scale factor, 1 on regular screens
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true); // guarded by this
+    private long bytes; // guarded by this
+
+    /**
+     * An image scaled for one card and size, and the memory its pixels take.
+     */
+    private static final class Entry {
+        final ImageIcon icon;
+        final long bytes;
+
+        Entry(ImageIcon icon, long bytes) {
+            this.icon = icon;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Creates a cache bounded to {@link #DEFAULT_MAX_BYTES}.
+     */
+    public CardImageCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes the most memory the cached pixels may take
+     */
+    public CardImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.hiDpiScale = screenScale();
+    }
+
+    /**
+     * @param card a playing card
+     * @param width the width the card is drawn at
+     * @param height the height the card is drawn at
+     * @return an icon of the card at the given size, with a HiDPI variant when the screen needs one
+     */
+    public ImageIcon getIcon(Card card, int width, int height) {
+        long key = key(card, width, height);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return entry.icon;
+            }
+        }
+        // decode outside the lock so the event thread is never stuck behind the warm-up thread
+        Entry entry = load(card, width, height);
+        synchronized (this) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing != null) {
+                return existing.icon;
+            }
+            bytes += entry.bytes;
+            evict();
+        }
+        return entry.icon;
+    }
+
+    /**
+     * Decodes and scales every card on a background thread, so the first hands drawn are already cached.
+     * @param width the width the cards are drawn at
+     * @param height the height the cards are drawn at
+     */
+    public void warmUp(int width, int height) {
+        Thread warmUp = new Thread(() -> {
+            for (int ordinal = 0; ordinal < PackedHand.CARD_COUNT; ordinal++) {
+                getIcon(Card.of(ordinal), width, height);
+            }
+        }, "card-image-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.setPriority(Thread.MIN_PRIORITY);
+        warmUp.start();
+    }
+
+    /**
+     * @return the memory currently taken by cached pixels
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Drops the least recently used entries until the cache is back under its bound.
+     */
+    private void evict() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (bytes > maxBytes && oldest.hasNext()) {
+            bytes -= oldest.next().bytes;
+            oldest.remove();
+        }
+    }
+
+    /**
+     * @return an entry holding the card scaled to the given size, and to the HiDPI size if there is one
+     */
+    private Entry load(Card card, int width, int height) {
+        BufferedImage source = decode(card);
+        BufferedImage base = scale(source, width, height);
+        long pixels = (long) width * height;
+        Image image = base;
+        if (hiDpiScale > 1) {
+            int hiDpiWidth = (int) Math.round(width * hiDpiScale);
+            int hiDpiHeight = (int) Math.round(height * hiDpiScale);
+            image = new BaseMultiResolutionImage(base, scale(source, hiDpiWidth, hiDpiHeight));
+            pixels += (long) hiDpiWidth * hiDpiHeight;
+        }
+        return new Entry(new ImageIcon(image), pixels * Integer.BYTES);
+    }
+
+    /**
+     * @return the full size image of the card
+     */
+    private BufferedImage decode(Card card) {
+        String imagePath = IMAGE_FOLDER + card.getImageFilePath();
+        try (InputStream in = Objects.requireNonNull(getClass().getResourceAsStream(imagePath), imagePath)) {
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read card image " + imagePath, e);
+        }
+    }
+
+    /**
+     * Scales down in steps of at most half, which keeps the quality of Image.SCALE_SMOOTH at a fraction of its cost.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            // never below the target, so scaling up happens in a single step
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * @return the scale factor of the default screen, 1 when there is no screen
+     */
+    private static double screenScale() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return 1;
+        }
+        GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration();
+        return Math.max(config.getDefaultTransform().getScaleX(), config.getDefaultTransform().getScaleY());
+    }
+
+    private static long key(Card card, int width, int height) {
+        return (long) card.getOrdinal() | (long) width << 8 | (long) height << 32;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.view;
+
+import main.model.Card;
+import main.model.Hand;
+import main.model.PackedHand;
+import main.model.Rank;
+import main.model.Suit;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CardPicker shows the whole deck as a grid of thumbnails, one row per suit, and lets the user pick a hand from it
+ * by clicking cards or with the keyboard: the arrow keys move the focus and space picks or puts back the focused
+ * card. It is a single component that paints the cards itself, so picking a card only flips a bit and repaints the
+ * card's cell; no components are created while picking. The thumbnails come from a {@link CardImageCache} once,
+ * when the picker is created, and the picker can be reused for any number of hands.
+ */
+public class CardPicker extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int THUMB_WIDTH = 54; // the size cards are drawn at in the picker
+    public static final int THUMB_HEIGHT = 84;
+
+    private static final int COLUMNS = Rank.values().length;
+    private static final int ROWS = Suit.values().length;
+    private static final int GAP = 4; // space around each card, where its border is drawn
+
+    private final ImageIcon[] thumbnails = new ImageIcon[PackedHand.CARD_COUNT]; // by card ordinal
+    private final Color pickedColor = Color.RED;
+    private final Color focusColor = Color.YELLOW;
+    private final Color dimColor = new Color(0, 0, 0, 110); // over cards that can't be picked, the hand being full
+    private final Stroke borderStroke = new BasicStroke(2);
+    private final List<Runnable> changeListeners = new ArrayList<>();
+
+    private int handSize = 1; // the number of cards to pick
+    private long picked = PackedHand.EMPTY; // the cards picked
+    private final int[] order = new int[PackedHand.CARD_COUNT]; // the ordinals of the picked cards, as picked
+    private int pickedCount;
+    private int focused; // the ordinal of the card the keyboard is on
+
+    /**
+     * @param cardImages the cache the thumbnails are taken from
+     */
+    public CardPicker(CardImageCache cardImages) {
+        for (int ordinal = 0; ordinal < PackedHand.CARD_COUNT; ordinal++) {
+            thumbnails[ordinal] = cardImages.getIcon(Card.of(ordinal), THUMB_WIDTH, THUMB_HEIGHT);
+        }
+        setPreferredSize(new Dimension(COLUMNS * cellWidth(), ROWS * cellHeight()));
+        setFocusable(true);
+        setOpaque(false);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                int column = e.getX() / cellWidth();
+                int row = e.getY() / cellHeight();
+                if (column < COLUMNS && row < ROWS) {
+                    moveFocus(row * COLUMNS + column);
+                    toggle(focused);
+                }
+            }
+        });
+
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                repaintCell(focused);
+            }
+
+            @Override
+            public void focusLost(FocusEvent e) {
+                repaintCell(focused);
+            }
+        });
+
+        // the arrow keys wrap around within the row or column
+        bindKey(KeyEvent.VK_LEFT, "left", () -> moveFocus(focused % COLUMNS == 0
+                ? focused + COLUMNS - 1 : focused - 1));
+        bindKey(KeyEvent.VK_RIGHT, "right", () -> moveFocus(focused % COLUMNS == COLUMNS - 1
+                ? focused - COLUMNS + 1 : focused + 1));
+        bindKey(KeyEvent.VK_UP, "up", () -> moveFocus((focused + (ROWS - 1) * COLUMNS) % PackedHand.CARD_COUNT));
+        bindKey(KeyEvent.VK_DOWN, "down", () -> moveFocus((focused + COLUMNS) % PackedHand.CARD_COUNT));
+        bindKey(KeyEvent.VK_SPACE, "toggle", () -> toggle(focused));
+        bindKey(KeyEvent.VK_BACK_SPACE, "undo", () -> {
+            if (pickedCount > 0) {
+                toggle(order[pickedCount - 1]);
+            }
+        });
+    }
+
+    /**
+     * Puts back every card and sets how many cards the next hand has.
+     * @param handSize the number of cards to pick
+     */
+    public void reset(int handSize) {
+        if (handSize < 1 || handSize > PackedHand.CARD_COUNT) {
+            throw new IllegalArgumentException("Hand size must be 1 to " + PackedHand.CARD_COUNT + ": " + handSize);
+        }
+        this.handSize = handSize;
+        picked = PackedHand.EMPTY;
+        pickedCount = 0;
+        repaint();
+        fireChange();
+    }
+
+    /**
+     * @return the number of cards to pick
+     */
+    public int getHandSize() {
+        return handSize;
+    }
+
+    /**
+     * @return the number of cards still to pick
+     */
+    public int getRemaining() {
+        return handSize - pickedCount;
+    }
+
+    /**
+     * @return a new hand of the cards picked, in the order they were picked
+     */
+    public Hand getHand() {
+        Hand hand = new Hand();
+        for (int i = 0; i < pickedCount; i++) {
+            hand.addCard(Card.of(order[i]));
+        }
+        return hand;
+    }
+
+    /**
+     * @param listener called on the event thread whenever a card is picked or put back
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Picks the card, or puts it back if it was picked. A card can't be picked once the hand is full.
+     */
+    private void toggle(int ordinal) {
+        long card = 1L << ordinal;
+        boolean wasFull = pickedCount == handSize;
+        if ((picked & card) != 0) {
+            picked &= ~card;
+            int at = 0;
+            while (order[at] != ordinal) {
+                at++;
+            }
+            System.arraycopy(order, at + 1, order, at, pickedCount - at - 1);
+            pickedCount--;
+        } else if (pickedCount < handSize) {
+            picked |= card;
+            order[pickedCount++] = ordinal;
+        } else {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        // every card is dimmed or undimmed when the hand fills or stops being full, otherwise only this one changes
+        if (wasFull != (pickedCount == handSize)) {
+            repaint();
+        } else {
+            repaintCell(ordinal);
+        }
+        fireChange();
+    }
+
+    private void moveFocus(int ordinal) {
+        int previous = focused;
+        focused = ordinal;
+        repaintCell(previous);
+        repaintCell(focused);
+    }
+
+    private void fireChange() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    private void bindKey(int keyCode, String name, Runnable action) {
+        getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    private void repaintCell(int ordinal) {
+        repaint((ordinal % COLUMNS) * cellWidth(), (ordinal / COLUMNS) * cellHeight(), cellWidth(), cellHeight());
+    }
+
+    private static int cellWidth() {
+        return THUMB_WIDTH + 2 * GAP;
+    }
+
+    private static int cellHeight() {
+        return THUMB_HEIGHT + 2 * GAP;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        Rectangle clip = g.getClipBounds();
+        boolean full = pickedCount == handSize;
+        g2.setStroke(borderStroke);
+        for (int ordinal = 0; ordinal < PackedHand.CARD_COUNT; ordinal++) {
+            int x = (ordinal % COLUMNS) * cellWidth();
+            int y = (ordinal / COLUMNS) * cellHeight();
+            if (clip != null && !clip.intersects(x, y, cellWidth(), cellHeight())) {
+                continue;
+            }
+            thumbnails[ordinal].paintIcon(this, g, x + GAP, y + GAP);
+            boolean isPicked = (picked & (1L << ordinal)) != 0;
+            if (full && !isPicked) {
+                g2.setColor(dimColor);
+                g2.fillRect(x + GAP, y + GAP, THUMB_WIDTH, THUMB_HEIGHT);
+            }
+            if (isPicked) {
+                g2.setColor(pickedColor);
+                g2.drawRect(x + 3, y + 3, cellWidth() - 6, cellHeight() - 6);
+            }
+            if (ordinal == focused && isFocusOwner()) {
+                g2.setColor(focusColor);
+                g2.drawRect(x + 1, y + 1, cellWidth() - 2, cellHeight() - 2);
+            }
+        }
+    }
+}
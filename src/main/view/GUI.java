@@ -8,26 +8,27 @@
 
 package main.view;
 
+import main.metrics.Metrics;
 import main.model.*;
 
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
 import javax.swing.*;
+import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
 import java.util.Objects;
-import javax.sound.sampled.*;
 
 /**
  * The graphical user-interface for the application.
  */
-public class GUI {
+public class GUI implements GameView {
 
     /******************************************** Data Attributes  ****************************************************/
     private final JFrame frame; // this is the main game frame
     private JPanel cardPanel; // this Panel will hold the user's cards
-    private JPanel previousCards; // this panel holds a history of the previous card selections
+    private JList<String> previousCards; // this list shows the history of the previous card selections
+    private HistoryListModel previousCardsModel; // the newest HISTORY_CAPACITY lines of the history
     private JLabel roundLabel; // this panel is used to display the current round information
     private ActionListener startButtonListener;
     private ActionListener howToPlayButtonListener;
@@ -35,7 +36,11 @@ public class GUI {
     private ActionListener quitButtonListener;
     private ActionListener backButtonListener;
 
-    private final Deck deck; // a deck of 52 Cards
+    private final CardImageCache cardImages = new CardImageCache(); // decoded, scaled card images
+    private JDialog pickerDialog; // the window cards are picked in, built on first use
+    private CardPicker cardPicker; // the deck shown in pickerDialog
+    private Hand pickedHand; // the hand picked in pickerDialog, null if canceled
+    private final AudioService audio = new AudioService(); // decoded sound effects, played off the event thread
 
     // Global font/style declarations
     private final Font bigFont = new Font("Serif", Font.BOLD, 20);
@@ -44,18 +49,23 @@ public class GUI {
     private final Font buttonFont = new Font("Serif", Font.PLAIN, 14);
     private final Color bg = new Color(53,101,77);
     private final Color txt = new Color(255, 255, 255);
+    private final Border chosenCardBorder = BorderFactory.createLineBorder(Color.RED, 3);
+    private final Border cardBorder = BorderFactory.createEmptyBorder(5, 5, 5, 5);
+    private static final int CARDS_AT_FULL_SIZE = 6; // larger hands are drawn smaller so they fit in one row
+    private static final int HISTORY_CAPACITY = HistoryStore.DEFAULT_CAPACITY; // lines of history shown
 
     /******************************************************************************************************************/
 
     /**
      * The constructor is used to create the frame that is used throughout the game.
      */
-    public GUI(Deck deck) {
+    public GUI() {
         frame = new JFrame("Art Dealer");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(900, 900);
         frame.setLocationRelativeTo(null);
-        this.deck = deck;
+        cardImages.warmUp(CardImageCache.CARD_WIDTH, CardImageCache.CARD_HEIGHT);
+        cardImages.warmUp(CardPicker.THUMB_WIDTH, CardPicker.THUMB_HEIGHT);
     }
 
     /**
@@ -142,16 +152,18 @@ public class GUI {
     }
 
     /**
+     * @param handSize the number of cards in a hand
      * @return The instructions for playing the game.
      */
-    private static JLabel getInstructionsjLabel() {
+    private static JLabel getInstructionsjLabel(int handSize) {
+        String cards = handSize + (handSize == 1 ? " card" : " cards");
         JLabel descriptionLabel = new JLabel("<html>" +
                  "<body style=color:white; font-family: serif>"
                 + "<h2>Introduction</h2>"
                 + "<p>Welcome to Art Dealer, the thrilling card game where you go head-to-head against the computer, " +
                 "known as the \"Art Dealer,\" in a battle of wits and pattern recognition. Your mission? Unravel the " +
                 "mystery behind the dealer's card selection pattern and outsmart them at their own game.</p>" + "<br>"
-                + "<p>In each round, you'll be presented with a challenge: pick four cards that you believe the Art " +
+                + "<p>In each round, you'll be presented with a challenge: pick " + cards + " that you believe the Art " +
                 "Dealer will also choose. But beware, the dealer's selections are shrouded in secrecy, and it's up to" +
                 " you to decipher the pattern behind their choices.<p>" + "<br>"
                 + "Successfully match the dealer's picks and earn a point. Rack up two points, and you'll advance to the next round, where a new and even more perplexing pattern awaits."
@@ -161,16 +173,16 @@ public class GUI {
                 + "<ol>"
                 + "<li><strong>Selection Process:</strong>"
                 + "<ul>"
-                + "<li>You will pick four cards, one by one.</li>"
-                + "<li>Each time you make a selection, the program will display the chosen card immediately.</li>"
-                + "<li>If you attempt to pick a card that has already been chosen in the current round, you'll receive an error message and be asked to choose another card.</li>"
-                + "<li>If you attempt to pick the same 4 cards more than once in a round you will be forced to pick " +
-                "your cards again.</li>"
+                + "<li>You will pick " + cards + " from the whole deck, shown in one window.</li>"
+                + "<li>Click a card to pick it, and click it again to put it back. You can also move with the arrow keys and pick with space.</li>"
+                + "<li>Once your hand is full, press Enter or Play Hand to play it.</li>"
+                + "<li>If you attempt to pick the same " + cards + " more than once in a round you will be forced " +
+                "to pick your cards again.</li>"
                 + "</ul>"
                 + "</li>"
                 + "<li><strong>Round Structure:</strong>"
                 + "<ul>"
-                + "<li>After you pick four cards, the Art Dealer will make its selection based on a predetermined pattern.</li>"
+                + "<li>After you pick " + cards + ", the Art Dealer will make its selection based on a predetermined pattern.</li>"
                 + "<li>The Art Dealer's selections will be displayed to you with a red border, indicating which cards" +
                 " it has chosen.</li>"
                 +"<li>In order to progress in the rounds you must match the pattern twice.</li>"
@@ -196,6 +208,7 @@ public class GUI {
      * Takes in the current round number and updates the round display
      * @param roundNumber the current round of the game
      */
+    @Override
     public void updateRoundNumber(int roundNumber, int currentWins, int requiredWins) {
         roundLabel.setText("Round " + roundNumber + " : " + currentWins + "/" + requiredWins);
         roundLabel.repaint();
@@ -252,26 +265,36 @@ public class GUI {
         /*************************************************************************************************************/
 
         /************************************* Previous Cards *********************************************************/
-        previousCards = new JPanel();
-        previousCards.setForeground(txt);
-        previousCards.setBackground(bg);
+        JPanel previousCardsPanel = new JPanel(new BorderLayout());
+        previousCardsPanel.setForeground(txt);
+        previousCardsPanel.setBackground(bg);
         JLabel heading = new JLabel("Previous Hands");
         heading.setBackground(bg);
         heading.setForeground(txt);
         heading.setFont(bigFont);
-        previousCards.add(heading);
-        previousCards.setLayout(new BoxLayout(previousCards, BoxLayout.Y_AXIS));
-        previousCards.setBorder(BorderFactory.createMatteBorder(0, 0, 0, 1, Color.BLACK));
-        previousCards.setBorder(BorderFactory.createCompoundBorder(
+        previousCardsPanel.add(heading, BorderLayout.NORTH);
+        previousCardsPanel.setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createMatteBorder(0, 0, 0, 1, Color.BLACK), // Right border
                 BorderFactory.createEmptyBorder(10, 10, 10, 10) // Padding
         ));
+
+        // only the rows on screen are drawn, by one reused renderer, and the fixed cell size spares the list from
+        // measuring every row when a line is added
+        previousCardsModel = new HistoryListModel(HISTORY_CAPACITY);
+        previousCards = new JList<>(previousCardsModel);
+        previousCards.setCellRenderer(new HistoryCellRenderer());
+        previousCards.setBackground(bg);
+        previousCards.setForeground(txt);
+        previousCards.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        previousCards.setPrototypeCellValue("USER WON PATTERN 10"); // sets the fixed cell height and first width
         JScrollPane previousCardsScroll = new JScrollPane(previousCards);
         previousCardsScroll.setBackground(bg);
         previousCardsScroll.setForeground(txt);
         previousCardsScroll.setFont(regFont);
         previousCardsScroll.setBorder(null);
-        gameScreenPanel.add(previousCardsScroll, BorderLayout.WEST);
+        previousCardsScroll.getViewport().setBackground(bg);
+        previousCardsPanel.add(previousCardsScroll, BorderLayout.CENTER);
+        gameScreenPanel.add(previousCardsPanel, BorderLayout.WEST);
         /*************************************************************************************************************/
 
         /***************************************** Button Panel *******************************************************/
@@ -319,6 +342,7 @@ public class GUI {
     /**
      * Clears the card display
      */
+    @Override
     public void clearCardPanel() {
         cardPanel.removeAll();
         cardPanel.revalidate();
@@ -326,55 +350,68 @@ public class GUI {
     }
 
     /**
-     * Displays a user's "hand" of cards on the screen.
+     * Displays a user's "hand" of cards on the screen, while the user is still picking them.
      * @param hand A hand of cards.
      */
     public void displayHand(Hand hand) {
+        displayHand(hand, PackedHand.EMPTY);
+    }
+
+    /**
+     * Displays a user's "hand" of cards on the screen.
+     * @param hand A hand of cards.
+     * @param chosenByDealer the packed set of cards the dealer chose, they are drawn with a red border
+     */
+    @Override
+    public void displayHand(Hand hand, long chosenByDealer) {
+        long start = System.nanoTime();
         cardPanel.removeAll(); // remove previous cards
+        int cards = Math.max(CARDS_AT_FULL_SIZE, hand.getHand().size());
+        int cardWidth = CardImageCache.CARD_WIDTH * CARDS_AT_FULL_SIZE / cards;
+        int cardHeight = CardImageCache.CARD_HEIGHT * CARDS_AT_FULL_SIZE / cards;
         // loop through the hand and display each card
         for (Card card : hand.getHand()) {
-            String imagePath = "/main/resources/PlayingCards/" + card.getImageFilePath();
-            // System.out.println(imagePath);
-            ImageIcon cardImage = new ImageIcon(Objects.requireNonNull(getClass().getResource(imagePath)));
-            // https://docs.oracle.com/javase/8/docs/api/java/awt/Image.html
-            Image scaledImage = cardImage.getImage().getScaledInstance(90, 140, Image.SCALE_SMOOTH);
-            ImageIcon resizedIcon = new ImageIcon(scaledImage);
-            JLabel imageLabel = new JLabel(resizedIcon);
+            // the cache hands back the same decoded, pre-scaled icon every time the card is drawn
+            JLabel imageLabel = new JLabel(cardImages.getIcon(card, cardWidth, cardHeight));
 
             // Check if the card was chosen by the dealer
-            if (card.getChosenByDealer()) {
+            if (PackedHand.contains(chosenByDealer, card)) {
                 // Add a border to the card if chosen by the dealer
-                imageLabel.setBorder(BorderFactory.createLineBorder(Color.RED, 3));
+                imageLabel.setBorder(chosenCardBorder);
             } else {
                 // Otherwise, add an empty border
-                imageLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+                imageLabel.setBorder(cardBorder);
             }
 
             cardPanel.add(imageLabel);
         }
         cardPanel.revalidate();
         cardPanel.repaint();
-
+        Metrics.DISPLAY_HAND.recordSince(start);
     }
 
     /**
      * Displays the log of "hands" on the screen.
      * @param cards A "hand" of cards formatted for logging.
      */
+    @Override
     public void displayPrevious(String cards){
         // Authored by Ellis Twiggs Jr
-        JLabel label = new JLabel(cards);
-        label.setForeground(txt);
-        label.setBorder(BorderFactory.createEmptyBorder());
-        previousCards.add(label);
-        previousCards.revalidate();
-        previousCards.repaint();
+        previousCardsModel.add(cards);
+        // widen the cells for a longer line than any before, the list never measures the rows itself
+        int width = previousCards.getCellRenderer()
+                .getListCellRendererComponent(previousCards, cards, 0, false, false).getPreferredSize().width;
+        if (width > previousCards.getFixedCellWidth()) {
+            previousCards.setFixedCellWidth(width);
+        }
+        previousCards.ensureIndexIsVisible(previousCardsModel.getSize() - 1);
     }
 
     /**
      * Display's a window showing the dealer's selections, only used on pattern 9.
      * @param message A string of text representing the dealer's choice of cards.
      */
+    @Override
     public void announceSelectionPatternNine(String message) {
         JOptionPane.showMessageDialog(frame, message);
     }
@@ -384,6 +421,7 @@ public class GUI {
      * @param currentWins the users current wins
      * @param requiredWins the required wins to advance to the next round
      */
+    @Override
     public void announceWin(int currentWins, int requiredWins) {
         String message;
 
@@ -398,74 +436,77 @@ public class GUI {
 
     // Authored by Ellis Twiggs Jr
     /**
-     * Display's a window, allowing the user to select which cards to be added to his hand.
-     * @return An array of cards to be added to the user's hand.
+     * Display's a window, allowing the user to select which cards to be added to their hand. All 52 cards are shown
+     * at once and the whole hand is picked in the one window, which is built the first time and reused after.
+     * @param handSize the number of cards to pick
+     * @return the user's hand, in the order the cards were picked, or null if the user canceled
      */
-public Hand displayChoice() {
-    // Arrays for the suits and ranks
-    String[] suits = {"CLUBS", "DIAMONDS", "HEARTS", "SPADES"};
-    String[] ranks = {"ACE", "TWO", "THREE", "FOUR", "FIVE", "SIX", "SEVEN",
-            "EIGHT", "NINE", "TEN", "JACK", "QUEEN", "KING"};
-    Hand userHand = new Hand();
-
-    for (int i = 0; i < 4; i++) {
-        JComboBox<String> suitComboBox = new JComboBox<>(suits);
-        JComboBox<String> rankComboBox = new JComboBox<>(ranks);
-
-
-
-        // Create a JPanel to hold the JComboBoxes and labels
-        JPanel panel = new JPanel();
-        panel.add(new JLabel("Select a Rank:"));
-        panel.add(rankComboBox);
-        panel.add(new JLabel("Select a Suit:"));
-        panel.add(suitComboBox);
-
-        // Show the pop-up window with the drop-down menus
-        int result = JOptionPane.showConfirmDialog(null, panel, "Select a Card",
-                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-
-        // Check if the user made a selection
-        if (result == JOptionPane.OK_OPTION) {
-            // Get the selected suit and rank
-            String selectedRank = (String) rankComboBox.getSelectedItem();
-            String selectedSuit = (String) suitComboBox.getSelectedItem();
-            // Convert the string to the Suit enum
-            // https://www.geeksforgeeks.org/converting-a-string-to-an-enum-in-java/
-            try {
-                Suit suitToEnum = Suit.valueOf(selectedSuit);
-                Rank rankToEnum = Rank.valueOf(selectedRank);
-                // https://www.w3schools.com/java/java_classes.asp
-                Card card = deck.getCard(rankToEnum, suitToEnum);
-                // Check if the card is already selected
-                if (!userHand.getHand().contains(card)) {
-                    // Add the selected card to the hand
-                    userHand.addCard(card);
-                    displayHand(userHand);
-
-                } else {
-                    // Display a message or handle the case where the same card is selected again
-                    JOptionPane.showMessageDialog(null, "You already selected this card. Please pick a new card.");
-                    i--; // Decrement the loop counter to prompt the user for the same position again
-                }
-
-                // Add the selected card to the list
-            } catch (IllegalArgumentException e) {
-                System.out.println("There was an error " + e);
-                JOptionPane.showMessageDialog(null, "Invalid selection. Please try again.");
-                i--;
-            }
-        } else {
-            System.out.println("User canceled the selection.");
-            JOptionPane.showMessageDialog(null, "User canceled the selection.");
-            // Clearing the selected cards
-            userHand.clear();
-            displayHand(userHand);
-            return null;
+    public Hand displayChoice(int handSize) {
+        if (pickerDialog == null) {
+            createPickerDialog();
         }
+        cardPicker.reset(handSize);
+        pickedHand = null;
+        pickerDialog.pack();
+        pickerDialog.setLocationRelativeTo(frame);
+        cardPicker.requestFocusInWindow();
+        pickerDialog.setVisible(true); // returns once the dialog is closed
+        return pickedHand;
+    }
+
+    /**
+     * Builds the card picker window used by displayChoice.
+     */
+    private void createPickerDialog() {
+        pickerDialog = new JDialog(frame, "Select Your Cards", true);
+        pickerDialog.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+        cardPicker = new CardPicker(cardImages);
+
+        JPanel pickerPanel = new JPanel(new BorderLayout(0, 10));
+        pickerPanel.setBackground(bg);
+        pickerPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        JLabel pickerLabel = new JLabel();
+        pickerLabel.setFont(regFont);
+        pickerLabel.setForeground(txt);
+        pickerPanel.add(pickerLabel, BorderLayout.NORTH);
+        pickerPanel.add(cardPicker, BorderLayout.CENTER);
+
+        JPanel pickerButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        pickerButtons.setBackground(bg);
+        JButton playButton = new JButton("Play Hand");
+        playButton.setFont(buttonFont);
+        JButton clearButton = new JButton("Clear");
+        clearButton.setFont(buttonFont);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setFont(buttonFont);
+        pickerButtons.add(playButton);
+        pickerButtons.add(clearButton);
+        pickerButtons.add(cancelButton);
+        pickerPanel.add(pickerButtons, BorderLayout.SOUTH);
+
+        // the text and the play button follow the picks, the picker itself only repaints the card that changed
+        cardPicker.addChangeListener(() -> {
+            int left = cardPicker.getRemaining();
+            pickerLabel.setText(left > 0
+                    ? "Pick " + left + " more card" + (left == 1 ? "" : "s")
+                            + ": click them, or use the arrow keys and space. Backspace puts back the last card."
+                    : "Your hand is ready. Press Enter or Play Hand to play it.");
+            playButton.setEnabled(left == 0);
+        });
+        playButton.addActionListener(e -> {
+            pickedHand = cardPicker.getHand();
+            pickerDialog.setVisible(false);
+        });
+        clearButton.addActionListener(e -> cardPicker.reset(cardPicker.getHandSize()));
+        cancelButton.addActionListener(e -> pickerDialog.setVisible(false));
+        pickerDialog.getRootPane().setDefaultButton(playButton);
+        pickerDialog.getRootPane().registerKeyboardAction(e -> pickerDialog.setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        pickerDialog.setContentPane(pickerPanel);
+        pickerDialog.setResizable(false);
     }
-    return userHand;
-}
 
     /*
     The program's action listeners are defined in the game controller so that they can return the flow to the
@@ -543,6 +584,7 @@ public Hand displayChoice() {
     /**
      * Warn user that they have used this hand in this round already
      */
+    @Override
     public void showSameHandWarning() {
         String message = "Nice try. You'll have to select a unique hand to win this round.";
         JOptionPane.showMessageDialog(frame, message);
@@ -565,31 +607,19 @@ public Hand displayChoice() {
     }
 
     /**
-     * play's a sound effect, used when the user wins a round
+     * play's a sound effect, used when the user wins a round. The sound plays on the audio thread, so this returns
+     * at once.
      */
+    @Override
     public void playVictorySound()  {
-        try {
-            AudioInputStream sound =
-                    AudioSystem.getAudioInputStream(Objects.requireNonNull(GUI.class.getResourceAsStream(
-                            "/main/resources/sound/victory.wav")));
-
-            Clip c = AudioSystem.getClip();
-
-            c.open(sound);
-            c.start();
-            Thread.sleep(c.getMicrosecondLength() / 1000);
-
-            c.close();
-            sound.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        audio.play(AudioService.Sound.VICTORY);
     }
 
     /**
      * shows a new window containing game instructions
+     * @param handSize the number of cards in a hand, as the instructions describe it
      */
-    public void showInstructionsScreen() {
+    public void showInstructionsScreen(int handSize) {
         frame.revalidate();
         frame.repaint();
         JPanel instructionsPanel = new JPanel();
@@ -597,7 +627,7 @@ public Hand displayChoice() {
         instructionsPanel.setBackground(bg);
         instructionsPanel.setForeground(Color.white);
 
-        JLabel gameDescriptionLabel = getInstructionsjLabel(); // a method below that returns the content of the label
+        JLabel gameDescriptionLabel = getInstructionsjLabel(handSize); // a method below that returns the content of the label
         gameDescriptionLabel.setForeground(txt);
         // // gameDescriptionLabel.setBorder(BorderFactory.createLineBorder(Color.black, 2));
         instructionsPanel.add(gameDescriptionLabel, BorderLayout.CENTER);
@@ -631,4 +661,22 @@ public Hand displayChoice() {
 
 
     public void addBackButtonListener(ActionListener listener) { backButtonListener = listener;}
+
+    /**
+     * Draws the lines of the history. One label is reused for every row; round won lines stand out in bold.
+     */
+    private class HistoryCellRenderer extends DefaultListCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                      boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, false);
+            String line = String.valueOf(value);
+            setFont(line.startsWith("USER WON PATTERN") ? regFont : list.getFont());
+            setForeground(txt);
+            setBackground(isSelected ? bg.darker() : bg);
+            return this;
+        }
+    }
 }
@@ -0,0 +1,69 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.view;
+
+import main.model.Hand;
+
+/**
+ * GameView is what the game engine calls back into while a session is played. The Swing GUI implements it to
+ * draw the game, while headless sessions (simulations, tests, servers) can use {@link #NONE}. Every method has an
+ * empty default, so a view only overrides the callbacks it cares about.
+ */
+public interface GameView {
+
+    /**
+     * A view that ignores every callback, for sessions played without a screen.
+     */
+    GameView NONE = new GameView() { };
+
+    /**
+     * Displays a user's "hand" of cards, with the dealer's choices marked.
+     * @param hand A hand of cards.
+     * @param chosenByDealer the packed set of cards the dealer chose
+     */
+    default void displayHand(Hand hand, long chosenByDealer) { }
+
+    /**
+     * Adds a line to the history of previous hands.
+     * @param cards A "hand" of cards formatted for logging, or a round won message.
+     */
+    default void displayPrevious(String cards) { }
+
+    /**
+     * Updates the round display.
+     * @param roundNumber the current round of the game
+     * @param currentWins the user's wins in the current round
+     * @param requiredWins the wins required to advance to the next round
+     */
+    default void updateRoundNumber(int roundNumber, int currentWins, int requiredWins) { }
+
+    /**
+     * Announces a win, and gives info about required wins to advance.
+     * @param currentWins the users current wins
+     * @param requiredWins the required wins to advance to the next round
+     */
+    default void announceWin(int currentWins, int requiredWins) { }
+
+    /**
+     * Tells the user which cards the dealer bought, only used on pattern 9.
+     * @param message A string of text representing the dealer's choice of cards.
+     */
+    default void announceSelectionPatternNine(String message) { }
+
+    /**
+     * Warns the user that they have used this hand in this round already.
+     */
+    default void showSameHandWarning() { }
+
+    /**
+     * Plays the sound effect for winning a round.
+     */
+    default void playVictorySound() { }
+
+    /**
+     * Clears the card display.
+     */
+    default void clearCardPanel() { }
+}
@@ -0,0 +1,59 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.view;
+
+import javax.swing.*;
+
+/**
+ * HistoryListModel shows a {@link HistoryStore} in a JList. The list only asks the model for the rows it draws, so
+ * as long as the list has a fixed cell size, adding a line costs the same however long the history is. Like the
+ * rest of Swing it must only be used on the event thread.
+ */
+public class HistoryListModel extends AbstractListModel<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HistoryStore store;
+
+    /**
+     * @param capacity the most lines kept, older ones are dropped
+     */
+    public HistoryListModel(int capacity) {
+        this.store = new HistoryStore(capacity);
+    }
+
+    /**
+     * Adds a line at the end of the list.
+     * @param line a hand formatted for logging, or a round won message
+     */
+    public void add(String line) {
+        if (store.add(line)) {
+            fireIntervalRemoved(this, 0, 0);
+        }
+        int last = store.size() - 1;
+        fireIntervalAdded(this, last, last);
+    }
+
+    /**
+     * Removes every line.
+     */
+    public void clear() {
+        int size = store.size();
+        store.clear();
+        if (size > 0) {
+            fireIntervalRemoved(this, 0, size - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return store.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return store.get(index);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.view;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HistoryStore keeps the newest lines of the history of previous hands in two primitive arrays: the text of every
+ * line, back to back, in one byte array, and where each line starts in a ring of offsets. A line of a 4 card hand
+ * takes about 20 bytes, against a few kilobytes for the label that used to show it. Once the store holds its
+ * capacity of lines, adding one drops the oldest. Lines are only turned back into Strings when they are read, which
+ * the history list only does for the rows on screen.
+ */
+public class HistoryStore {
+
+    public static final int DEFAULT_CAPACITY = 10_000; // lines kept, older ones are dropped
+
+    private final long[] starts; // ring of where each line starts, as an offset into the text written so far
+    private int first; // the slot of the oldest line in starts
+    private int size; // the number of lines kept
+
+    private byte[] bytes = new byte[4096]; // the text from offset base on
+    private long base; // the offset of bytes[0]
+    private long end; // the offset after the newest line
+
+    /**
+     * Creates a store keeping {@link #DEFAULT_CAPACITY} lines.
+     */
+    public HistoryStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the most lines kept, at least 1
+     */
+    public HistoryStore(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History must keep at least one line: " + capacity);
+        }
+        starts = new long[capacity];
+    }
+
+    /**
+     * Adds a line, dropping the oldest one if the store is full.
+     * @param line the line
+     * @return whether the oldest line was dropped to make room
+     */
+    public boolean add(String line) {
+        byte[] text = line.getBytes(StandardCharsets.UTF_8);
+        boolean dropped = size == starts.length;
+        if (dropped) {
+            first = next(first);
+            size--;
+        }
+        ensureRoom(text.length);
+        System.arraycopy(text, 0, bytes, (int) (end - base), text.length);
+        starts[slot(size)] = end;
+        size++;
+        end += text.length;
+        return dropped;
+    }
+
+    /**
+     * @param index 0 for the oldest line kept, up to size() - 1 for the newest
+     * @return the line
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Line " + index + " of " + size);
+        }
+        long start = starts[slot(index)];
+        long stop = index + 1 < size ? starts[slot(index + 1)] : end;
+        return new String(bytes, (int) (start - base), (int) (stop - start), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of lines kept
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drops every line.
+     */
+    public void clear() {
+        first = 0;
+        size = 0;
+        base = 0;
+        end = 0;
+    }
+
+    /**
+     * Makes room for a line of the given length after the newest one. The lines kept are first moved to the front
+     * of the array, which frees the space of dropped lines; the array only grows if that is not enough.
+     */
+    private void ensureRoom(int length) {
+        if (end - base + length <= bytes.length) {
+            return;
+        }
+        long oldest = size > 0 ? starts[first] : end;
+        int kept = (int) (end - oldest);
+        byte[] target = bytes;
+        if (kept + length > bytes.length / 2) { // keep at least half free, so moves stay amortized
+            target = new byte[Math.max(2 * bytes.length, 2 * (kept + length))];
+        }
+        System.arraycopy(bytes, (int) (oldest - base), target, 0, kept);
+        bytes = target;
+        base = oldest;
+    }
+
+    private int slot(int index) {
+        int slot = first + index;
+        return slot < starts.length ? slot : slot - starts.length;
+    }
+
+    private int next(int slot) {
+        return slot + 1 < starts.length ? slot + 1 : 0;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+
+/**
+ * DealerPatterns is a hand-written version of the art dealer's 12 selection patterns, kept as an oracle for the
+ * shipped DealerPatterns.rules. Every pattern takes the user's hand as a PackedHand and returns the packed set of
+ * cards the dealer picks from it. The game itself only plays the patterns compiled by {@link PatternRules}.
+ */
+final class DealerPatterns {
+
+    static final int PATTERN_COUNT = 12; // number of dealer patterns, one per round
+
+    private static final long HIGH_CARDS = PackedHand.ACES | PackedHand.FACE_CARDS;
+    private static final long BLACK_JACKS = PackedHand.JACKS & PackedHand.BLACK;
+    private static final SubsetSum ELEVENS = new SubsetSum(11, 1, 2); // pattern nine, aces counting as one
+
+    private DealerPatterns() {
+    }
+
+    /**
+     * @param pattern the current round is used to determine the pattern
+     * @param hand the user's current hand
+     * @return the dealer's choices based on picking cards from the user hand using the correct pattern
+     */
+    static long select(int pattern, long hand) {
+        return switch (pattern) {
+            case 2 -> patternTwo(hand);
+            case 3 -> patternThree(hand);
+            case 4 -> patternFour(hand);
+            case 5 -> patternFive(hand);
+            case 6 -> patternSix(hand);
+            case 7 -> patternSeven(hand);
+            case 8 -> patternEight(hand);
+            case 9 -> patternNine(hand);
+            case 10 -> patternTen(hand);
+            case 11 -> patternEleven(hand);
+            case 12 -> patternTwelve(hand);
+            default -> patternOne(hand);
+        };
+    }
+
+    /**
+     * patternOne() selects cards from the user's hand if they are a red card.
+     * Written by Jonathon
+     * @param hand The user's hand of cards.
+     * @return The dealer's selected cards.
+     */
+    static long patternOne(long hand) {
+        return hand & PackedHand.RED;
+    }
+
+    /**
+     * patternTwo() selects cards from the user's hand if they are a club.
+     * @param hand The user's hand of cards.
+     * @return The dealer's selected cards.
+     */
+    static long patternTwo(long hand) {
+        return hand & PackedHand.CLUBS;
+    }
+
+    /**
+     * @param hand the user's selected hand
+     * @return The dealers choices consisting of All Face Cards - Kings, Queens, and Jacks
+     */
+    static long patternThree(long hand) {
+        return hand & PackedHand.FACE_CARDS;
+    }
+
+    /**
+     * @param hand the user's selected hand
+     * @return the art dealers choices, consisting of all single digit cards (2,3,4,5,6,7,8,9)
+     */
+    static long patternFour(long hand) {
+        return hand & PackedHand.SINGLE_DIGITS;
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the art dealers selections, consisting of all single digit primes - 2,3,5,7
+     */
+    static long patternFive(long hand) {
+        return hand & PackedHand.SINGLE_DIGIT_PRIMES;
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the art dealer selections, consisting of the highest rank cards from the current hand (ranks are
+     * compared in Rank order, so an ace is the lowest rank)
+     */
+    static long patternSix(long hand) {
+        int ranks = PackedHand.rankSet(hand);
+        if (ranks == 0) {
+            return PackedHand.EMPTY;
+        }
+        int highestRank = 31 - Integer.numberOfLeadingZeros(ranks);
+        return hand & (PackedHand.ACES << highestRank);
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the art dealer selections, the dealer will select all cards if and only if they are a run of
+     * consecutive ranks (ace high) in the same suit
+     */
+    static long patternSeven(long hand) {
+        if (hand == 0 || Integer.bitCount(PackedHand.suitSet(hand)) != 1) {
+            return PackedHand.EMPTY;
+        }
+        int ranks = PackedHand.rankSet(hand);
+        int aceHigh = (ranks >>> 1) | ((ranks & 1) << (PackedHand.RANK_COUNT - 1));
+        return isRun(aceHigh, 1) ? hand : PackedHand.EMPTY;
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the art dealer selections, the dealer will sort the cards by rank and then select all cards only if
+     * their rank always differs by 2. An ace sorts first but counts as 14, so a hand with an ace never matches.
+     */
+    static long patternEight(long hand) {
+        int size = PackedHand.size(hand);
+        int ranks = PackedHand.rankSet(hand);
+        if (size == 0 || Integer.bitCount(ranks) != size || (size > 1 && (hand & PackedHand.ACES) != 0)) {
+            return PackedHand.EMPTY;
+        }
+        return isRun(ranks, 2) ? hand : PackedHand.EMPTY;
+    }
+
+    /**
+     * The dealer looks for combinations of at least two cards, aces counting as one and face cards never
+     * counting, that add up to 11. The largest such combination is bought, ties going to the lowest cards.
+     * @param hand the user's selected cards
+     * @return the art dealer selections, the largest combination of cards that adds up to 11
+     */
+    static long patternNine(long hand) {
+        return ELEVENS.largest(hand & ~PackedHand.FACE_CARDS);
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the art dealers selections, the dealer will select all the cards only if they hold exactly 2 eights
+     * and 2 aces
+     */
+    static long patternTen(long hand) {
+        if (PackedHand.count(hand, PackedHand.ACES) == 2 && PackedHand.count(hand, PackedHand.EIGHTS) == 2) {
+            return hand;
+        }
+        return PackedHand.EMPTY;
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the art dealers selections, the dealer will select all the cards only if they are aces, kings,
+     * queens, and jacks, all in the same suit
+     */
+    static long patternEleven(long hand) {
+        if (hand != 0 && Integer.bitCount(PackedHand.suitSet(hand)) == 1 && (hand & ~HIGH_CARDS) == 0) {
+            return hand;
+        }
+        return PackedHand.EMPTY;
+    }
+
+    /**
+     * @param hand the user's selected cards
+     * @return the dealer's selections, the dealer will select all the cards if and only if the cards contain 2
+     * black jacks and any 2 aces
+     */
+    static long patternTwelve(long hand) {
+        if (PackedHand.count(hand, BLACK_JACKS) == 2 && PackedHand.count(hand, PackedHand.ACES) == 2) {
+            return hand;
+        }
+        return PackedHand.EMPTY;
+    }
+
+    /**
+     * @param ranks a set of rank bits
+     * @param step the distance between neighbouring ranks
+     * @return whether the set bits are evenly spaced by step, starting from the lowest one
+     */
+    static boolean isRun(int ranks, int step) {
+        int bits = ranks >>> Integer.numberOfTrailingZeros(ranks);
+        int run = 0;
+        for (int i = 0; i < Integer.bitCount(ranks); i++) {
+            run |= 1 << (i * step);
+        }
+        return bits == run;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.log.HistoryText;
+import main.log.HistoryVisitor;
+import main.model.PackedHand;
+import main.model.Rank;
+import main.model.Suit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryReplayTest {
+
+    private static final String RULES = "1: select color is red\n2: select suit is clubs\n";
+
+    private static final int[] RED_AND_CLUBS = {
+            PackedHand.ordinal(Rank.TWO, Suit.HEARTS), PackedHand.ordinal(Rank.THREE, Suit.CLUBS),
+            PackedHand.ordinal(Rank.FOUR, Suit.DIAMONDS), PackedHand.ordinal(Rank.FIVE, Suit.SPADES)};
+    private static final long RED = 0b0101; // positions of the red cards
+    private static final long CLUBS = 0b0010; // position of the club
+
+    /**
+     * A session that wins round 1 and then plays round 2, and a session resumed in round 2.
+     */
+    private static Path history(Path dir) throws IOException {
+        StringBuilder text = new StringBuilder();
+        HistoryVisitor log = HistoryText.writer(text);
+        log.sessionStarted(LocalDate.of(2024, 4, 1));
+        log.hand(RED_AND_CLUBS, 4, RED);
+        log.hand(RED_AND_CLUBS, 4, RED);
+        log.roundWon(1);
+        log.hand(RED_AND_CLUBS, 4, CLUBS);
+        log.sessionStarted(LocalDate.of(2024, 4, 2));
+        log.hand(RED_AND_CLUBS, 4, CLUBS);
+        log.hand(RED_AND_CLUBS, 4, CLUBS);
+        Path file = dir.resolve("CardsDealt.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void unchangedRulesPass(@TempDir Path dir) throws IOException {
+        HistoryReplay replay = new HistoryReplay(PatternRules.load(RULES));
+        replay.replay(history(dir));
+        assertEquals(2, replay.getHands(1));
+        assertEquals(1, replay.getHands(2));
+        assertEquals(2, replay.getMatched(2)); // the resumed session, not checked
+        assertEquals(1, replay.getMatchedRuns());
+        assertEquals(0, replay.getUnattributed());
+        assertTrue(replay.passes());
+    }
+
+    @Test
+    void changedPatternFailsThroughKnownRounds(@TempDir Path dir) throws IOException {
+        HistoryReplay replay = new HistoryReplay(PatternRules.load("1: select color is black\n"
+                + "2: select suit is clubs\n"));
+        replay.replay(history(dir));
+        assertEquals(2, replay.getChanged(1));
+        assertTrue(replay.hasChanges());
+        assertFalse(replay.passes());
+    }
+
+    /**
+     * Round 2 is only checked by the session resumed in it, which no pattern matches once round 2 changes, so the
+     * change shows up as unattributed hands rather than changed ones.
+     */
+    @Test
+    void changedPatternFailsThroughUnattributedHands(@TempDir Path dir) throws IOException {
+        StringBuilder text = new StringBuilder();
+        HistoryVisitor log = HistoryText.writer(text);
+        log.sessionStarted(LocalDate.of(2024, 4, 2));
+        log.hand(RED_AND_CLUBS, 4, CLUBS);
+        Path file = dir.resolve("CardsDealt.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        HistoryReplay replay = new HistoryReplay(PatternRules.load("1: select color is red\n"
+                + "2: select suit is spades\n"));
+        replay.replay(file);
+        assertFalse(replay.hasChanges());
+        assertEquals(1, replay.getUnattributed());
+        assertFalse(replay.passes());
+    }
+}
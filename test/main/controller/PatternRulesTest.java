@@ -0,0 +1,115 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.Combinations;
+import main.model.PackedHand;
+import main.model.Rank;
+import main.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatternRulesTest {
+
+    /**
+     * The shipped rules must choose exactly what the hand-written patterns choose, for every hand the game deals.
+     */
+    @Test
+    void shippedRulesMatchHandWrittenPatternsOnEveryHand() {
+        DealerPattern[] patterns = PatternRules.load(PatternRules.readDefault());
+        assertEquals(DealerPatterns.PATTERN_COUNT, patterns.length);
+        for (int handSize = 1; handSize <= GameEngine.HAND_SIZE; handSize++) {
+            Combinations.stream(handSize, false).forEach(hand -> {
+                for (int p = 0; p < patterns.length; p++) {
+                    long expected = DealerPatterns.select(p + 1, hand);
+                    long actual = patterns[p].select(hand);
+                    if (expected != actual) {
+                        throw new AssertionError("Pattern " + (p + 1) + " on " + PackedHand.toHand(hand)
+                                + ": expected " + PackedHand.toHand(expected) + " but was "
+                                + PackedHand.toHand(actual));
+                    }
+                }
+            });
+        }
+    }
+
+    @Test
+    void cardFilters() {
+        long hand = card(Rank.ACE, Suit.HEARTS) | card(Rank.TWO, Suit.CLUBS) | card(Rank.JACK, Suit.SPADES)
+                | card(Rank.KING, Suit.DIAMONDS);
+        assertEquals(card(Rank.ACE, Suit.HEARTS) | card(Rank.KING, Suit.DIAMONDS),
+                PatternRules.compile("select color is red").select(hand));
+        assertEquals(card(Rank.TWO, Suit.CLUBS) | card(Rank.JACK, Suit.SPADES) | card(Rank.KING, Suit.DIAMONDS),
+                PatternRules.compile("select rank is prime").select(hand));
+        assertEquals(card(Rank.JACK, Suit.SPADES) | card(Rank.KING, Suit.DIAMONDS),
+                PatternRules.compile("select rank >= J").select(hand));
+        assertEquals(card(Rank.KING, Suit.DIAMONDS), PatternRules.compile("select rank is highest").select(hand));
+        assertEquals(card(Rank.ACE, Suit.HEARTS), PatternRules.compile("select rank is lowest").select(hand));
+        assertEquals(card(Rank.TWO, Suit.CLUBS) | card(Rank.JACK, Suit.SPADES),
+                PatternRules.compile("SELECT SUIT IN {clubs, spades}").select(hand));
+        assertEquals(card(Rank.ACE, Suit.HEARTS) | card(Rank.TWO, Suit.CLUBS),
+                PatternRules.compile("select rank in {A..2} or suit is hearts and rank is face").select(hand));
+    }
+
+    @Test
+    void conditions() {
+        long run = card(Rank.TEN, Suit.SPADES) | card(Rank.JACK, Suit.SPADES) | card(Rank.QUEEN, Suit.SPADES)
+                | card(Rank.KING, Suit.SPADES);
+        long aceHighRun = run & ~card(Rank.TEN, Suit.SPADES) | card(Rank.ACE, Suit.SPADES);
+        DealerPattern consecutive = PatternRules.compile("select all if consecutive");
+        assertEquals(run, consecutive.select(run));
+        assertEquals(aceHighRun, consecutive.select(aceHighRun));
+        assertEquals(PackedHand.EMPTY, consecutive.select(run & ~card(Rank.JACK, Suit.SPADES)
+                | card(Rank.NINE, Suit.SPADES)));
+
+        long spaced = card(Rank.THREE, Suit.CLUBS) | card(Rank.FIVE, Suit.HEARTS) | card(Rank.SEVEN, Suit.CLUBS);
+        assertEquals(spaced, PatternRules.compile("select all if spaced 2").select(spaced));
+        assertEquals(PackedHand.EMPTY, PatternRules.compile("select all if spaced 2 and same suit").select(spaced));
+        assertEquals(spaced, PatternRules.compile("select all if sum = 15 and size = 3").select(spaced));
+        assertEquals(spaced, PatternRules.compile("select all if not (any rank is face or sum > 15)").select(spaced));
+        assertEquals(PackedHand.EMPTY, PatternRules.compile("select all if count(color is red) >= 2").select(spaced));
+    }
+
+    @Test
+    void largestSubset() {
+        long hand = card(Rank.TWO, Suit.CLUBS) | card(Rank.THREE, Suit.CLUBS) | card(Rank.SIX, Suit.HEARTS)
+                | card(Rank.NINE, Suit.SPADES);
+        assertEquals(card(Rank.TWO, Suit.CLUBS) | card(Rank.THREE, Suit.CLUBS) | card(Rank.SIX, Suit.HEARTS),
+                PatternRules.compile("select largest subset of all summing to 11").select(hand));
+        assertEquals(PackedHand.EMPTY,
+                PatternRules.compile("select largest subset of all summing to 9 with at least 4 cards").select(hand));
+    }
+
+    @Test
+    void invalidRulesSayWhere() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> PatternRules.compile("select rank is purple"));
+        assertTrue(e.getMessage().contains("column"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.compile("choose all"));
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.compile("select all if"));
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.compile("select suit in {clubs"));
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.compile("select all extra"));
+    }
+
+    @Test
+    void rulesFilesMustBeNumberedFromOne() {
+        assertEquals(2, PatternRules.load("# comment\n\n1: select all\n2: select not all\n").length);
+        IllegalArgumentException gap = assertThrows(IllegalArgumentException.class,
+                () -> PatternRules.load("1: select all\n3: select all\n"));
+        assertTrue(gap.getMessage().contains("numbered 1 to n"), gap.getMessage());
+        IllegalArgumentException twice = assertThrows(IllegalArgumentException.class,
+                () -> PatternRules.load("1: select all\n1: select all\n"));
+        assertTrue(twice.getMessage().startsWith("Line 2"), twice.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.load("select all\n"));
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.load(""));
+    }
+
+    private static long card(Rank rank, Suit suit) {
+        return PackedHand.of(rank, suit);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+import main.model.Rank;
+import main.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatternSolverTest {
+
+    private static final String RULES = "1: select color is red\n2: select suit is clubs\n";
+    private static final int RED = PatternSolver.FILTER_COUNT; // built-in pattern 1
+    private static final int CLUBS = PatternSolver.FILTER_COUNT + 1; // built-in pattern 2
+    private static final int RED_FILTER = 0b0110 * 8192 + 0b1_1111_1111_1111; // suit in {diamonds, hearts}, any rank
+
+    /**
+     * Replays hands the red pattern chose from. The true rule and the card filter that does the same survive, the
+     * clubs pattern is ruled out, and the solver then predicts what the dealer chooses from new hands.
+     */
+    @Test
+    void keepsTheTrueRuleAndRulesOutTheRest() {
+        DealerPattern[] patterns = PatternRules.load(RULES);
+        PatternSolver solver = new PatternSolver(patterns);
+        Random random = new Random(15);
+        int consistent = solver.countConsistent();
+        assertEquals(solver.candidateCount(), consistent);
+
+        for (int i = 0; i < 40; i++) {
+            long hand = randomHand(random, 4);
+            solver.observe(hand, patterns[0].select(hand));
+            assertTrue(solver.countConsistent() <= consistent);
+            consistent = solver.countConsistent();
+            assertTrue(isConsistent(solver, RED), "the true rule was ruled out");
+            assertTrue(isConsistent(solver, RED_FILTER), solver.describe(RED_FILTER) + " was ruled out");
+        }
+        assertFalse(isConsistent(solver, CLUBS), "the clubs rule survived");
+        assertTrue(consistent < solver.candidateCount());
+        assertEquals(40, solver.getObservations());
+        assertEquals("pattern 1", solver.describe(RED));
+        assertEquals("select suit in {diamonds, hearts}", solver.describe(RED_FILTER));
+
+        for (int i = 0; i < 100; i++) {
+            long hand = randomHand(random, 4);
+            assertEquals(patterns[0].select(hand), solver.predict(hand), () -> PackedHand.toHand(hand).toString());
+        }
+    }
+
+    /**
+     * One hand the clubs pattern would choose differently from is enough to rule it out.
+     */
+    @Test
+    void oneDisagreementRulesOutAPattern() {
+        DealerPattern[] patterns = PatternRules.load(RULES);
+        PatternSolver solver = new PatternSolver(patterns);
+        long hand = PackedHand.of(Rank.TWO, Suit.HEARTS) | PackedHand.of(Rank.THREE, Suit.CLUBS)
+                | PackedHand.of(Rank.FOUR, Suit.DIAMONDS) | PackedHand.of(Rank.FIVE, Suit.SPADES);
+        assertNotEquals(patterns[0].select(hand), patterns[1].select(hand));
+        solver.observe(hand, patterns[0].select(hand));
+        assertTrue(isConsistent(solver, RED));
+        assertFalse(isConsistent(solver, CLUBS));
+    }
+
+    @Test
+    void resetMakesEveryCandidateConsistentAgain() {
+        PatternSolver solver = new PatternSolver(PatternRules.load(RULES));
+        long hand = randomHand(new Random(3), 4);
+        solver.observe(hand, PackedHand.EMPTY);
+        assertTrue(solver.countConsistent() < solver.candidateCount());
+        solver.reset();
+        assertEquals(solver.candidateCount(), solver.countConsistent());
+        assertEquals(0, solver.getObservations());
+        assertEquals(0, solver.nthConsistent(0));
+    }
+
+    @Test
+    void rejectsCardsThatAreNotInTheHand() {
+        PatternSolver solver = new PatternSolver(PatternRules.load(RULES));
+        long hand = PackedHand.of(Rank.ACE, Suit.SPADES);
+        assertThrows(IllegalArgumentException.class,
+                () -> solver.observe(hand, PackedHand.of(Rank.KING, Suit.SPADES)));
+    }
+
+    /**
+     * @return whether the candidate is still consistent with every observation
+     */
+    private static boolean isConsistent(PatternSolver solver, int candidate) {
+        return solver.nextConsistent(candidate) == candidate;
+    }
+
+    private static long randomHand(Random random, int n) {
+        long cards = PackedHand.EMPTY;
+        while (Long.bitCount(cards) < n) {
+            cards |= 1L << random.nextInt(PackedHand.CARD_COUNT);
+        }
+        return cards;
+    }
+}
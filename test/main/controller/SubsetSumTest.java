@@ -0,0 +1,120 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.controller;
+
+import main.model.PackedHand;
+import main.model.Rank;
+import main.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubsetSumTest {
+
+    private static final int[] TARGETS = {0, 1, 2, 11, 21, 40, 100};
+    private static final int[] ACE_VALUES = {1, 11};
+    private static final int[] MIN_SIZES = {1, 2, 3};
+
+    /**
+     * Up to 6 cards every subset is searched, from 7 cards small targets use the table and large ones meet in the
+     * middle, so hands of 1 to 16 cards and targets from 0 to 100 cross both boundaries. Every answer is checked
+     * against trying every subset.
+     */
+    @Test
+    void everySearchAgreesWithTryingEverySubset() {
+        Random random = new Random(11);
+        for (int n = 1; n <= 16; n++) {
+            int hands = n <= 12 ? 40 : 4;
+            for (int h = 0; h < hands; h++) {
+                long cards = randomCards(random, n);
+                for (int target : TARGETS) {
+                    for (int aceValue : ACE_VALUES) {
+                        for (int minSize : MIN_SIZES) {
+                            long expected = bruteForce(cards, target, aceValue, minSize);
+                            long actual = new SubsetSum(target, aceValue, minSize).largest(cards);
+                            assertEquals(expected, actual, () -> PackedHand.toHand(cards) + " summing to " + target
+                                    + " with aces " + aceValue + " and at least " + minSize + " cards");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void tiesGoToTheLowestCards() {
+        long twos = PackedHand.TWOS;
+        long twoOfClubs = PackedHand.of(Rank.TWO, Suit.CLUBS);
+        long twoOfDiamonds = PackedHand.of(Rank.TWO, Suit.DIAMONDS);
+        assertEquals(twoOfClubs | twoOfDiamonds, new SubsetSum(4, 1, 1).largest(twos));
+        assertEquals(twoOfClubs, new SubsetSum(2, 1, 1).largest(twos));
+    }
+
+    @Test
+    void handsThatAddUpToTheTargetAreTakenWhole() {
+        long hand = PackedHand.of(Rank.ACE, Suit.SPADES) | PackedHand.of(Rank.KING, Suit.HEARTS);
+        assertEquals(hand, new SubsetSum(14, 1, 2).largest(hand));
+        assertEquals(hand, new SubsetSum(24, 11, 1).largest(hand));
+        assertEquals(PackedHand.EMPTY, new SubsetSum(14, 1, 3).largest(hand));
+        assertEquals(PackedHand.EMPTY, new SubsetSum(15, 1, 1).largest(hand));
+    }
+
+    @Test
+    void theWholeDeck() {
+        // the deck adds up to 4 * 91 = 364
+        assertEquals(PackedHand.FULL_DECK, new SubsetSum(364, 1, 1).largest(PackedHand.FULL_DECK));
+        assertEquals(PackedHand.EMPTY, new SubsetSum(365, 1, 1).largest(PackedHand.FULL_DECK));
+        assertEquals(PackedHand.FULL_DECK & ~PackedHand.of(Rank.ACE, Suit.SPADES),
+                new SubsetSum(363, 1, 1).largest(PackedHand.FULL_DECK));
+        assertEquals(PackedHand.of(Rank.ACE, Suit.CLUBS) | PackedHand.of(Rank.ACE, Suit.DIAMONDS),
+                new SubsetSum(2, 1, 1).largest(PackedHand.FULL_DECK));
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> new SubsetSum(-1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SubsetSum(11, -1, 1));
+    }
+
+    private static long bruteForce(long cards, int target, int aceValue, int minSize) {
+        long[] bits = new long[Long.bitCount(cards)];
+        long rest = cards;
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = Long.lowestOneBit(rest);
+            rest &= rest - 1;
+        }
+        long best = PackedHand.EMPTY;
+        int bestSize = 0;
+        for (int mask = 1; mask < 1 << bits.length; mask++) {
+            long subset = 0;
+            int sum = 0;
+            for (int i = 0; i < bits.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    subset |= bits[i];
+                    int rank = Long.numberOfTrailingZeros(bits[i]) % PackedHand.RANK_COUNT;
+                    sum += rank == 0 ? aceValue : rank + 1;
+                }
+            }
+            int size = Long.bitCount(subset);
+            if (sum == target && size >= Math.max(1, minSize)
+                    && (size > bestSize || (size == bestSize && subset < best))) {
+                best = subset;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    private static long randomCards(Random random, int n) {
+        long cards = PackedHand.EMPTY;
+        while (Long.bitCount(cards) < n) {
+            cards |= 1L << random.nextInt(PackedHand.CARD_COUNT);
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncAppenderTest {
+
+    private static final AsyncAppender.FlushPolicy NEVER = new AsyncAppender.FlushPolicy(Long.MAX_VALUE / 1_000_000,
+            Integer.MAX_VALUE, Long.MAX_VALUE); // only close() flushes
+
+    /**
+     * Closing writes out every line accepted before it, from every thread and in each thread's order, even when
+     * the buffer is much smaller than the lines logged and nothing was flushed before.
+     */
+    @Test
+    void closeDrainsEveryAcceptedLine() throws InterruptedException {
+        RecordingWriter out = new RecordingWriter();
+        AsyncAppender appender = new AsyncAppender(out, 8, NEVER, AsyncAppender.OverflowPolicy.BLOCK, "test-log");
+        int threads = 4;
+        int lines = 5000;
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < lines; i++) {
+                    assertTrue(appender.append(thread + ":" + i));
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        appender.close();
+
+        assertTrue(out.closed);
+        int[] next = new int[threads];
+        for (String line : out.lines()) {
+            int colon = line.indexOf(':');
+            int thread = Integer.parseInt(line.substring(0, colon));
+            assertEquals(next[thread]++, Integer.parseInt(line.substring(colon + 1)), line);
+        }
+        for (int t = 0; t < threads; t++) {
+            assertEquals(lines, next[t]);
+        }
+    }
+
+    /**
+     * With DROP, lines are refused while the writer thread is stuck and the buffer is full, and every line that
+     * was accepted is still written.
+     */
+    @Test
+    void dropRefusesLinesWhenFull() throws InterruptedException {
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingWriter out = new RecordingWriter() {
+            @Override
+            public void write(String line) {
+                if (line.equals("first")) {
+                    stuck.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.write(line);
+            }
+        };
+        AsyncAppender appender = new AsyncAppender(out, 4, NEVER, AsyncAppender.OverflowPolicy.DROP, "test-log");
+        assertTrue(appender.append("first"));
+        assertTrue(stuck.await(10, TimeUnit.SECONDS));
+        List<String> accepted = new ArrayList<>(List.of("first"));
+        for (int i = 0; i < 10; i++) {
+            if (appender.append("line " + i)) {
+                accepted.add("line " + i);
+            }
+        }
+        assertEquals(5, accepted.size()); // "first" is being written, 4 more fit in the buffer
+        release.countDown();
+        appender.close();
+        assertEquals(accepted, out.lines());
+    }
+
+    @Test
+    void closedAppenderRefusesLines() {
+        RecordingWriter out = new RecordingWriter();
+        AsyncAppender appender = new AsyncAppender(out, 4, NEVER, AsyncAppender.OverflowPolicy.BLOCK, "test-log");
+        assertTrue(appender.append("before"));
+        appender.close();
+        assertFalse(appender.append("after"));
+        appender.close();
+        assertEquals(List.of("before"), out.lines());
+    }
+
+    /**
+     * A line waits at most the flush delay before it is flushed, without any more lines or a close.
+     */
+    @Test
+    void flushesAfterTheDelay() throws InterruptedException {
+        RecordingWriter out = new RecordingWriter();
+        AsyncAppender appender = new AsyncAppender(out, 4, new AsyncAppender.FlushPolicy(10, Integer.MAX_VALUE,
+                Long.MAX_VALUE), AsyncAppender.OverflowPolicy.BLOCK, "test-log");
+        try {
+            assertTrue(appender.append("line"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (out.flushes == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, out.flushes);
+            assertFalse(out.closed);
+        } finally {
+            appender.close();
+        }
+    }
+
+    /**
+     * A StringWriter that remembers whether it was flushed and closed.
+     */
+    private static class RecordingWriter extends StringWriter {
+
+        volatile int flushes;
+        volatile boolean closed;
+
+        @Override
+        public synchronized void write(String line) {
+            super.write(line);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        synchronized List<String> lines() {
+            return toString().lines().toList();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import main.model.PackedHand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryHistoryTest {
+
+    @Test
+    void zigzagKeepsSmallDeltasSmall() {
+        assertEquals(0, BinaryHistoryWriter.zigzag(0));
+        assertEquals(1, BinaryHistoryWriter.zigzag(-1));
+        assertEquals(2, BinaryHistoryWriter.zigzag(1));
+        assertEquals(3, BinaryHistoryWriter.zigzag(-2));
+        assertEquals(-1L, BinaryHistoryWriter.zigzag(Long.MIN_VALUE));
+        assertEquals(-2L, BinaryHistoryWriter.zigzag(Long.MAX_VALUE));
+    }
+
+    /**
+     * Every record, including deltas that need the full width of a varint, reads back as it was written.
+     */
+    @Test
+    void binaryRoundTrip() throws IOException {
+        Recorder expected = new Recorder();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryHistoryWriter writer = new BinaryHistoryWriter(bytes)) {
+            HistoryVisitor both = tee(writer, expected);
+            both.sessionStarted(LocalDate.of(2024, 3, 1));
+            both.sessionStarted(LocalDate.of(2023, 12, 31));
+            both.sessionStarted(LocalDate.MIN);
+            both.sessionStarted(LocalDate.MAX);
+            both.sessionStarted(LocalDate.ofEpochDay(0));
+            both.roundWon(1);
+            both.roundWon(12);
+            both.roundWon(3);
+            both.roundWon(Integer.MAX_VALUE);
+            both.roundWon(Integer.MIN_VALUE);
+            both.hand(new int[]{0, 13, 26, 51}, 4, 0b1010);
+            both.hand(new int[0], 0, 0);
+            both.hand(new int[]{7}, 1, 1);
+            int[] deck = new int[PackedHand.CARD_COUNT];
+            Arrays.setAll(deck, i -> PackedHand.CARD_COUNT - 1 - i);
+            both.hand(deck, deck.length, PackedHand.FULL_DECK);
+            both.text("");
+            both.text("New Game Started — ünïcödé");
+        }
+        Recorder actual = new Recorder();
+        BinaryHistoryReader.read(new ByteArrayInputStream(bytes.toByteArray()), actual);
+        assertEquals(expected.records, actual.records);
+    }
+
+    /**
+     * A history appended to by a second writer reads back as one history: the header is not repeated, and the
+     * deltas of the new records continue from the last ones in the file.
+     */
+    @Test
+    void appendContinuesAnExistingHistory(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("CardsDealt.bin");
+        Recorder expected = new Recorder();
+        try (BinaryHistoryWriter writer = BinaryHistoryWriter.append(file)) {
+            HistoryVisitor both = tee(writer, expected);
+            both.sessionStarted(LocalDate.of(2024, 3, 1));
+            both.hand(new int[]{0, 13, 26, 51}, 4, 0b0011);
+            both.roundWon(1);
+            both.roundWon(2);
+        }
+        try (BinaryHistoryWriter writer = BinaryHistoryWriter.append(file)) {
+            HistoryVisitor both = tee(writer, expected);
+            both.sessionStarted(LocalDate.of(2024, 3, 2));
+            both.roundWon(1);
+            both.hand(new int[]{1, 2, 3, 4, 5}, 5, 0b10101);
+            both.text("New Game Started");
+        }
+        try (BinaryHistoryWriter writer = BinaryHistoryWriter.append(file)) {
+            tee(writer, expected).sessionStarted(LocalDate.of(2024, 2, 29));
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(BinaryHistoryWriter.MAGIC.length, indexAfter(bytes, BinaryHistoryWriter.MAGIC));
+        assertEquals(-1, indexAfter(Arrays.copyOfRange(bytes, 1, bytes.length), BinaryHistoryWriter.MAGIC));
+        Recorder actual = new Recorder();
+        try (InputStream in = Files.newInputStream(file)) {
+            BinaryHistoryReader.read(in, actual);
+        }
+        assertEquals(expected.records, actual.records);
+    }
+
+    @Test
+    void appendRejectsAFileThatIsNotABinaryHistory(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("CardsDealt.txt");
+        Files.writeString(file, "04/02/2024\n", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> BinaryHistoryWriter.append(file));
+    }
+
+    /**
+     * Text converted to binary and back gives the same lines, for a history of random hands of several sizes.
+     */
+    @Test
+    void textToBinaryAndBack() throws IOException {
+        String text = randomHistory(new Random(42), 2000);
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        HistoryConverter.textToBinary(new BufferedReader(new StringReader(text)), binary);
+        StringBuilder back = new StringBuilder();
+        HistoryConverter.binaryToText(new ByteArrayInputStream(binary.toByteArray()), back);
+        assertEquals(text, back.toString());
+    }
+
+    /**
+     * The memory-mapped reader parses the bytes of a file into the same records as the line-based text parser.
+     */
+    @Test
+    void mappedReaderMatchesTextParser(@TempDir Path dir) throws IOException {
+        String text = randomHistory(new Random(7), 500);
+        Path file = dir.resolve("CardsDealt.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        Recorder expected = new Recorder();
+        int[] ordinals = new int[PackedHand.CARD_COUNT];
+        text.lines().forEach(line -> HistoryText.parseLine(line, expected, ordinals));
+        Recorder actual = new Recorder();
+        MappedHistoryReader.read(file, actual);
+        assertEquals(expected.records, actual.records);
+    }
+
+    @Test
+    void rejectsMalformedHistories() {
+        byte[] noMagic = {'X', 'D', 'H', '1'};
+        assertThrows(IOException.class,
+                () -> BinaryHistoryReader.read(new ByteArrayInputStream(noMagic), new Recorder()));
+        assertRejected(IOException.class, 0x50);
+        assertRejected(IOException.class, 0x00, 1, 2, 3, 52);
+        assertRejected(EOFException.class, 0x00, 1, 2);
+        assertRejected(EOFException.class, 0x20, 0x80);
+        // an 11 byte varint
+        assertRejected(IOException.class, 0x20, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01);
+        // sizes and lengths that are negative as a long, or larger than possible
+        assertRejected(IOException.class, 0x10, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01);
+        assertRejected(IOException.class, 0x10, 53);
+        assertRejected(IOException.class, 0x40, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01);
+        assertRejected(IOException.class, 0x40, 0x80, 0x80, 0x80, 0x80, 0x10);
+        assertRejected(EOFException.class, 0x40, 5, 'a', 'b');
+    }
+
+    /**
+     * @return the index after the first occurrence of pattern in bytes, or -1
+     */
+    private static int indexAfter(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                return i + pattern.length;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertRejected(Class<? extends IOException> expected, int... records) {
+        byte[] bytes = new byte[BinaryHistoryWriter.MAGIC.length + records.length];
+        System.arraycopy(BinaryHistoryWriter.MAGIC, 0, bytes, 0, BinaryHistoryWriter.MAGIC.length);
+        for (int i = 0; i < records.length; i++) {
+            bytes[BinaryHistoryWriter.MAGIC.length + i] = (byte) records[i];
+        }
+        assertThrows(expected, () -> BinaryHistoryReader.read(new ByteArrayInputStream(bytes), new Recorder()));
+    }
+
+    /**
+     * @return a CardsDealt.txt style history with session dates, won rounds, other lines and hands of 1 to 13 cards
+     */
+    private static String randomHistory(Random random, int lines) {
+        StringBuilder text = new StringBuilder();
+        HistoryVisitor writer = HistoryText.writer(text);
+        LocalDate date = LocalDate.of(2023, 1, 1);
+        int[] ordinals = new int[PackedHand.CARD_COUNT];
+        for (int line = 0; line < lines; line++) {
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                date = date.plusDays(random.nextInt(40) - 10);
+                writer.sessionStarted(date);
+            } else if (kind == 1) {
+                writer.roundWon(1 + random.nextInt(12));
+            } else if (kind == 2) {
+                writer.text("New Game Started");
+            } else {
+                int size = kind < 15 ? 4 : 1 + random.nextInt(13);
+                long hand = PackedHand.EMPTY;
+                for (int i = 0; i < size; i++) {
+                    int ordinal;
+                    do {
+                        ordinal = random.nextInt(PackedHand.CARD_COUNT);
+                    } while ((hand & (1L << ordinal)) != 0);
+                    hand |= 1L << ordinal;
+                    ordinals[i] = ordinal;
+                }
+                writer.hand(ordinals, size, random.nextLong() & ((1L << size) - 1));
+            }
+        }
+        return text.toString();
+    }
+
+    private static HistoryVisitor tee(HistoryVisitor a, HistoryVisitor b) {
+        return new HistoryVisitor() {
+            @Override
+            public void sessionStarted(LocalDate date) {
+                a.sessionStarted(date);
+                b.sessionStarted(date);
+            }
+
+            @Override
+            public void hand(int[] ordinals, int size, long chosenPositions) {
+                a.hand(ordinals, size, chosenPositions);
+                b.hand(ordinals, size, chosenPositions);
+            }
+
+            @Override
+            public void roundWon(int pattern) {
+                a.roundWon(pattern);
+                b.roundWon(pattern);
+            }
+
+            @Override
+            public void text(String line) {
+                a.text(line);
+                b.text(line);
+            }
+        };
+    }
+
+    /**
+     * Keeps every record it receives as a string, so histories can be compared.
+     */
+    private static final class Recorder implements HistoryVisitor {
+
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void sessionStarted(LocalDate date) {
+            records.add("session " + date);
+        }
+
+        @Override
+        public void hand(int[] ordinals, int size, long chosenPositions) {
+            records.add("hand " + Arrays.toString(Arrays.copyOf(ordinals, size)) + " " + chosenPositions);
+        }
+
+        @Override
+        public void roundWon(int pattern) {
+            records.add("won " + pattern);
+        }
+
+        @Override
+        public void text(String line) {
+            records.add("text " + line);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+    Authored by Adam Loepker
+ */
+
+package main.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressStoreTest {
+
+    @Test
+    void savedProgressIsReadBack(@TempDir Path dir) {
+        Path file = dir.resolve("progress.txt");
+        try (ProgressStore store = ProgressStore.open(file)) {
+            store.setLastRoundWon(ProgressStore.DEFAULT_PROFILE, 3);
+            store.setLastRoundWon("8-cards", 1);
+            store.setLastRoundWon("8-cards", 5);
+            assertTrue(store.flush());
+        }
+        try (ProgressStore store = ProgressStore.open(file)) {
+            assertEquals(3, store.getLastRoundWon(ProgressStore.DEFAULT_PROFILE));
+            assertEquals(5, store.getLastRoundWon("8-cards"));
+            assertEquals(0, store.getLastRoundWon("13-cards"));
+            assertEquals(Set.of(ProgressStore.DEFAULT_PROFILE, "8-cards"), store.getProfiles());
+        }
+        assertFalse(Files.exists(dir.resolve("progress.txt.tmp")));
+    }
+
+    @Test
+    void readsOlderSavesAndSkipsMalformedLines(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("progress.txt");
+        Files.writeString(file, "7\n8-cards=x\n", StandardCharsets.UTF_8);
+        try (ProgressStore store = ProgressStore.open(file)) {
+            assertEquals(7, store.getLastRoundWon(ProgressStore.DEFAULT_PROFILE));
+            assertEquals(Set.of(ProgressStore.DEFAULT_PROFILE), store.getProfiles());
+        }
+    }
+
+    /**
+     * A temporary file left by a crash mid-write is discarded, and the last complete save is kept.
+     */
+    @Test
+    void crashMidWriteKeepsTheLastSave(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("progress.txt");
+        Files.writeString(file, "default=4\n", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("progress.txt.tmp"), "default=", StandardCharsets.UTF_8);
+        try (ProgressStore store = ProgressStore.open(file)) {
+            assertEquals(4, store.getLastRoundWon(ProgressStore.DEFAULT_PROFILE));
+        }
+        assertFalse(Files.exists(dir.resolve("progress.txt.tmp")));
+    }
+
+    /**
+     * While writes fail, flush() does not report the progress as saved, and the write is retried until it succeeds.
+     * A directory in the way of the temporary file makes every write fail until it is removed.
+     */
+    @Test
+    void failedWritesAreRetried(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("progress.txt");
+        Path blocker = dir.resolve("progress.txt.tmp");
+        try (ProgressStore store = ProgressStore.open(file)) {
+            Files.createDirectory(blocker);
+            store.setLastRoundWon(ProgressStore.DEFAULT_PROFILE, 2);
+            assertFalse(store.flush());
+            assertFalse(Files.exists(file));
+
+            Files.delete(blocker);
+            assertTrue(store.flush());
+            assertEquals(ProgressStore.DEFAULT_PROFILE + "=2",
+                    Files.readAllLines(file, StandardCharsets.UTF_8).get(1));
+        }
+    }
+
+    @Test
+    void closeGivesUpOnWritesThatKeepFailing(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("progress.txt");
+        ProgressStore store = ProgressStore.open(file);
+        Files.createDirectory(dir.resolve("progress.txt.tmp"));
+        store.setLastRoundWon(ProgressStore.DEFAULT_PROFILE, 2);
+        assertTimeoutPreemptively(Duration.ofSeconds(30), store::close);
+        assertFalse(Files.exists(file));
+        assertThrows(IllegalStateException.class, () -> store.setLastRoundWon(ProgressStore.DEFAULT_PROFILE, 3));
+    }
+
+    @Test
+    void rejectsProfilesThatCannotBeSaved(@TempDir Path dir) {
+        try (ProgressStore store = ProgressStore.open(dir.resolve("progress.txt"))) {
+            for (String profile : new String[]{"", "#x", "a=b", "a\nb", " a"}) {
+                assertThrows(IllegalArgumentException.class, () -> store.setLastRoundWon(profile, 1));
+            }
+        }
+    }
+}
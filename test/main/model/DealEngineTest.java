@@ -0,0 +1,102 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealEngineTest {
+
+    @Test
+    void sameSeedDealsTheSameHands() {
+        DealEngine first = new DealEngine(17);
+        DealEngine second = new DealEngine(17);
+        for (int count = 0; count <= PackedHand.CARD_COUNT; count++) {
+            assertEquals(first.deal(count), second.deal(count));
+        }
+        long[] firstHands = new long[100];
+        long[] secondHands = new long[100];
+        first.deal(firstHands, 0, firstHands.length, 4);
+        second.deal(secondHands, 0, secondHands.length, 4);
+        assertArrayEquals(firstHands, secondHands);
+        assertNotEquals(new DealEngine(17).deal(4), new DealEngine(18).deal(4)); // 1 in 270,725 to be equal
+    }
+
+    /**
+     * A partial shuffle deals count different cards, and a hand of 52 is the whole deck.
+     */
+    @Test
+    void dealsDistinctCards() {
+        DealEngine engine = new DealEngine(7);
+        for (int count = 0; count <= PackedHand.CARD_COUNT; count++) {
+            for (int i = 0; i < 20; i++) {
+                long hand = engine.deal(count);
+                assertEquals(count, Long.bitCount(hand));
+                assertEquals(PackedHand.EMPTY, hand & ~PackedHand.FULL_DECK);
+            }
+        }
+        assertEquals(PackedHand.FULL_DECK, engine.deal(PackedHand.CARD_COUNT));
+
+        Hand hand = new Hand();
+        engine.deal(hand, 13);
+        Set<Integer> cards = new HashSet<>();
+        for (Card card : hand.getHand()) {
+            cards.add(card.getOrdinal());
+        }
+        assertEquals(13, cards.size());
+    }
+
+    /**
+     * Every card is dealt about as often as every other, whatever order earlier deals left the engine's cards in.
+     */
+    @Test
+    void dealsEveryCardEvenly() {
+        DealEngine engine = new DealEngine(3);
+        int[] dealt = new int[PackedHand.CARD_COUNT];
+        int deals = 1000 * PackedHand.CARD_COUNT;
+        for (int i = 0; i < deals; i++) {
+            long hand = engine.deal(1);
+            dealt[Long.numberOfTrailingZeros(hand)]++;
+            engine.deal(5); // moves cards around between the deals counted
+        }
+        for (int card = 0; card < dealt.length; card++) {
+            assertTrue(dealt[card] > 850 && dealt[card] < 1150, "card " + card + " dealt " + dealt[card] + " times");
+        }
+    }
+
+    @Test
+    void splitEnginesAreReproducibleAndIndependent() {
+        DealEngine parent = new DealEngine(11);
+        DealEngine child = parent.split();
+        DealEngine sameChild = new DealEngine(11).split();
+        List<Long> childHands = new ArrayList<>();
+        List<Long> parentHands = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            long hand = child.deal(4);
+            assertEquals(hand, sameChild.deal(4));
+            childHands.add(hand);
+            parentHands.add(parent.deal(4));
+        }
+        assertNotEquals(parentHands, childHands);
+    }
+
+    @Test
+    void rejectsBadCounts() {
+        DealEngine engine = new DealEngine(1);
+        assertThrows(IllegalArgumentException.class, () -> engine.deal(-1));
+        assertThrows(IllegalArgumentException.class, () -> engine.deal(PackedHand.CARD_COUNT + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.deal(new long[4], 2, 3, 4));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandIndexTest {
+
+    /**
+     * Walking every 4 card hand visits them in the order of their numbers, and every number unranks to its hand.
+     */
+    @Test
+    void everyFourCardHandRoundTrips() {
+        assertEquals(270_725, HandIndex.count(4));
+        AtomicLong index = new AtomicLong();
+        Combinations.of(4).forEachRemaining((long hand) -> {
+            long i = index.getAndIncrement();
+            assertEquals(4, Long.bitCount(hand));
+            if (HandIndex.rank(hand) != i || HandIndex.unrank(i, 4) != hand) {
+                throw new AssertionError("Hand " + PackedHand.toHand(hand) + " is not number " + i);
+            }
+        });
+        assertEquals(HandIndex.count(4), index.get());
+    }
+
+    @Test
+    void everyHandSizeRoundTrips() {
+        Random random = new Random(19);
+        for (int size = 0; size <= PackedHand.CARD_COUNT; size++) {
+            long count = HandIndex.count(size);
+            assertEquals(PackedHand.EMPTY, HandIndex.unrank(0, size) & ~((1L << size) - 1));
+            assertEquals(count - 1, HandIndex.rank(HandIndex.unrank(count - 1, size)));
+            for (int i = 0; i < 200; i++) {
+                long index = Math.floorMod(random.nextLong(), count);
+                long hand = HandIndex.unrank(index, size);
+                assertEquals(size, Long.bitCount(hand));
+                assertEquals(index, HandIndex.rank(hand));
+            }
+        }
+        assertEquals(PackedHand.FULL_DECK, HandIndex.unrank(0, PackedHand.CARD_COUNT));
+    }
+
+    @Test
+    void rejectsNumbersOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> HandIndex.count(-1));
+        assertThrows(IllegalArgumentException.class, () -> HandIndex.count(PackedHand.CARD_COUNT + 1));
+        assertThrows(IllegalArgumentException.class, () -> HandIndex.unrank(-1, 4));
+        assertThrows(IllegalArgumentException.class, () -> HandIndex.unrank(HandIndex.count(4), 4));
+    }
+
+    /**
+     * A parallel walk visits every hand exactly once, the same as a sequential one.
+     */
+    @Test
+    void parallelWalkVisitsEveryHandOnce() {
+        long sequential = Combinations.stream(5, false).map(hand -> hand * 0x9E3779B97F4A7C15L).sum();
+        long parallel = Combinations.stream(5, true).map(hand -> hand * 0x9E3779B97F4A7C15L).sum();
+        assertEquals(sequential, parallel);
+        assertEquals(HandIndex.count(5), Combinations.stream(5, true).count());
+        assertEquals(HandIndex.count(5), Combinations.stream(5, true).distinct().count());
+    }
+
+    @Test
+    void splitsAreContiguous() {
+        Combinations second = Combinations.of(4);
+        Spliterator.OfLong first = second.trySplit();
+        assertNotNull(first);
+        assertEquals(HandIndex.count(4), first.estimateSize() + second.estimateSize());
+        long[] last = new long[1];
+        first.forEachRemaining((long hand) -> last[0] = hand);
+        long[] next = new long[1];
+        assertTrue(second.tryAdvance((long hand) -> next[0] = hand));
+        assertEquals(HandIndex.rank(last[0]) + 1, HandIndex.rank(next[0]));
+        assertNull(Combinations.of(2).trySplit()); // 1326 hands are not worth splitting
+    }
+
+    @Test
+    void emptyAndFullHands() {
+        assertEquals(1, Combinations.stream(0, false).count());
+        assertEquals(PackedHand.EMPTY, Combinations.stream(0, false).findFirst().getAsLong());
+        assertEquals(PackedHand.FULL_DECK, Combinations.stream(PackedHand.CARD_COUNT, false).findFirst().getAsLong());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+    Authored by Dustin Yochim
+ */
+
+package main.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedHandSetTest {
+
+    @Test
+    void addsEachHandOnce() {
+        PackedHandSet set = new PackedHandSet();
+        long hand = PackedHand.of(Rank.ACE, Suit.SPADES) | PackedHand.of(Rank.KING, Suit.HEARTS);
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(hand));
+        assertTrue(set.add(hand));
+        assertFalse(set.add(hand));
+        assertTrue(set.contains(hand));
+        assertFalse(set.contains(PackedHand.of(Rank.ACE, Suit.SPADES)));
+        assertEquals(1, set.size());
+    }
+
+    /**
+     * The empty hand marks a free slot in the table, so it is kept apart from the other hands.
+     */
+    @Test
+    void holdsTheEmptyHand() {
+        PackedHandSet set = new PackedHandSet();
+        assertFalse(set.contains(PackedHand.EMPTY));
+        assertTrue(set.add(PackedHand.EMPTY));
+        assertFalse(set.add(PackedHand.EMPTY));
+        assertTrue(set.contains(PackedHand.EMPTY));
+        assertEquals(1, set.size());
+        assertTrue(set.add(PackedHand.FULL_DECK));
+        assertEquals(2, set.size());
+    }
+
+    /**
+     * The table doubles whenever it is half full, starting from 16 slots, so adding hands one card apart and then
+     * many random ones grows it many times. The set agrees with a HashSet throughout.
+     */
+    @Test
+    void growsPastTheResizeThreshold() {
+        PackedHandSet set = new PackedHandSet();
+        Set<Long> expected = new HashSet<>();
+        for (int card = 0; card < PackedHand.CARD_COUNT; card++) {
+            long hand = 1L << card;
+            assertTrue(set.add(hand));
+            expected.add(hand);
+            assertEquals(expected.size(), set.size());
+            for (long added : expected) {
+                assertTrue(set.contains(added));
+            }
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long hand = randomHand(random, 1 + random.nextInt(3));
+            assertEquals(expected.add(hand), set.add(hand));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long hand : expected) {
+            assertTrue(set.contains(hand));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long hand = randomHand(random, 6);
+            assertEquals(expected.contains(hand), set.contains(hand));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheSet() {
+        PackedHandSet set = new PackedHandSet();
+        for (int card = 0; card < 40; card++) {
+            set.add(1L << card);
+        }
+        set.add(PackedHand.EMPTY);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains(PackedHand.EMPTY));
+        assertTrue(set.add(1L));
+        assertEquals(1, set.size());
+    }
+
+    private static long randomHand(Random random, int n) {
+        long cards = PackedHand.EMPTY;
+        while (Long.bitCount(cards) < n) {
+            cards |= 1L << random.nextInt(PackedHand.CARD_COUNT);
+        }
+        return cards;
+    }
+}